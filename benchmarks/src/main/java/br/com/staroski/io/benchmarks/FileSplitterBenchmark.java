@@ -0,0 +1,69 @@
+package br.com.staroski.io.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import br.com.staroski.io.FileSplitter;
+
+/**
+ * Benchmarks of the {@link FileSplitter#split(int)} method.
+ *
+ * @author Ricardo Artur Staroski
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = { "-Xms1g", "-Xmx1g" })
+public class FileSplitterBenchmark {
+
+    @Param({ "1048576", "33554432" })
+    public long fileSize;
+
+    @Param({ "16", "1024" })
+    public int maxLineLength;
+
+    @Param({ "2", "16", "128" })
+    public int parts;
+
+    @Param({ "UTF-8", "UTF-16LE" })
+    public String charsetName;
+
+    private File directory;
+    private FileSplitter splitter;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Charset charset = Charset.forName(charsetName);
+        directory = SyntheticInput.directory();
+        File input = SyntheticInput.file(new File(directory, "input.txt"), fileSize, maxLineLength, charset);
+        splitter = new FileSplitter(input, charset).setOutputFolder(new File(directory, "parts"));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        SyntheticInput.delete(directory);
+    }
+
+    @Benchmark
+    public File[] split() throws Exception {
+        return splitter.split(parts);
+    }
+}
@@ -0,0 +1,81 @@
+package br.com.staroski.io.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import br.com.staroski.io.IO;
+
+/**
+ * Benchmarks of the {@link IO#copy(File, File)}, {@link IO#readLines(File, Charset)} and {@link IO#writeLines(File, List, Charset)} methods.
+ *
+ * @author Ricardo Artur Staroski
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = { "-Xms1g", "-Xmx1g" })
+public class IOBenchmark {
+
+    @Param({ "1048576", "33554432" })
+    public long fileSize;
+
+    @Param({ "16", "128", "1024" })
+    public int maxLineLength;
+
+    @Param({ "UTF-8", "UTF-16LE" })
+    public String charsetName;
+
+    private Charset charset;
+    private File directory;
+    private File input;
+    private File output;
+    private List<String> lines;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        charset = Charset.forName(charsetName);
+        directory = SyntheticInput.directory();
+        input = SyntheticInput.file(new File(directory, "input.txt"), fileSize, maxLineLength, charset);
+        output = new File(directory, "output.txt");
+        lines = SyntheticInput.lines(fileSize, maxLineLength);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        SyntheticInput.delete(directory);
+    }
+
+    @Benchmark
+    public void copy() throws IOException {
+        IO.copy(input, output);
+    }
+
+    @Benchmark
+    public List<String> readLines() throws IOException {
+        return IO.readLines(input, charset);
+    }
+
+    @Benchmark
+    public void writeLines() throws IOException {
+        IO.writeLines(output, lines, charset);
+    }
+}
@@ -0,0 +1,113 @@
+package br.com.staroski.io.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import br.com.staroski.io.IO;
+
+/**
+ * Generates the synthetic inputs used by the benchmarks.<br>
+ * The content depends only on the given parameters and on a fixed seed, so every run, on every commit, measures the same data.
+ *
+ * @author Ricardo Artur Staroski
+ */
+final class SyntheticInput {
+
+    private static final long SEED = 0x5EED_10L;
+
+    private static final String ALPHABET = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789 ,.;áéíóúçãõ";
+
+    /**
+     * Creates lines whose lengths are uniformly distributed between zero and <code>maxLineLength</code>, until their total length reaches
+     * <code>size</code> characters.
+     *
+     * @param size
+     *            The approximate number of characters of all lines together.
+     *
+     * @param maxLineLength
+     *            The maximum length of a line.
+     *
+     * @return The generated lines.
+     */
+    static List<String> lines(long size, int maxLineLength) {
+        Random random = new Random(SEED);
+        List<String> lines = new ArrayList<>();
+        StringBuilder line = new StringBuilder(maxLineLength);
+        for (long total = 0; total < size;) {
+            line.setLength(0);
+            for (int i = 0, n = random.nextInt(maxLineLength + 1); i < n; i++) {
+                line.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+            }
+            lines.add(line.toString());
+            total += line.length() + 1;
+        }
+        return lines;
+    }
+
+    /**
+     * Creates a temporary directory for the files of a benchmark.
+     *
+     * @return The temporary directory.
+     *
+     * @throws IOException
+     *             If some I/O operation goes wrong.
+     */
+    static File directory() throws IOException {
+        return Files.createTempDirectory("staroski-io-bench").toFile();
+    }
+
+    /**
+     * Deletes a directory created by {@link #directory()} and all its files.
+     *
+     * @param directory
+     *            The directory to be deleted.
+     *
+     * @throws IOException
+     *             If some I/O operation goes wrong.
+     */
+    static void delete(File directory) throws IOException {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (file.isDirectory()) {
+                    delete(file);
+                } else {
+                    IO.delete(file);
+                }
+            }
+        }
+        IO.delete(directory);
+    }
+
+    /**
+     * Writes the lines generated by {@link #lines(long, int)} into a file.
+     *
+     * @param file
+     *            The file to be written.
+     *
+     * @param size
+     *            The approximate number of characters of the file.
+     *
+     * @param maxLineLength
+     *            The maximum length of a line.
+     *
+     * @param charset
+     *            The charset of the file.
+     *
+     * @return The written file.
+     *
+     * @throws IOException
+     *             If some I/O operation goes wrong.
+     */
+    static File file(File file, long size, int maxLineLength, Charset charset) throws IOException {
+        IO.writeLines(file, lines(size, maxLineLength), charset);
+        return file;
+    }
+
+    private SyntheticInput() {}
+}
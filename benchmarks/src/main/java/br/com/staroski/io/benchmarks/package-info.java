@@ -0,0 +1,15 @@
+/**
+ * This package contains the JMH benchmarks of the I/O utilities.<br>
+ * The benchmarks are compiled against the sources of the enclosing project, so they always measure the code of the current commit.<br>
+ * The inputs are generated with a fixed seed on a temporary directory, keeping the results comparable across commits.<br>
+ * To build and run them, from the <code>benchmarks</code> folder:
+ * 
+ * <pre>
+ * mvn package
+ * java -jar target/benchmarks.jar -prof gc -rf json -rff results.json
+ * </pre>
+ * 
+ * The <code>-prof gc</code> option reports the allocation rate of each benchmark, the throughput and the latency percentiles are reported by the
+ * <code>Throughput</code> and <code>SampleTime</code> modes.
+ */
+package br.com.staroski.io.benchmarks;
@@ -2,9 +2,11 @@ package br.com.staroski.io;
 
 import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
+import java.nio.charset.Charset;
 
 /**
  * This class is a partial implementation of interface {@link FileSplitterModel}.
@@ -16,6 +18,9 @@ public abstract class AbstractFileSplitterModel implements FileSplitterModel {
     // the enclosed input file
     private File file;
 
+    // the charset of the input file and of the part files
+    private final Charset charset;
+
     // The number of lines of the input file.
     private int lines;
 
@@ -25,6 +30,12 @@ public abstract class AbstractFileSplitterModel implements FileSplitterModel {
     // The calculated size for each part file.
     private int partSize;
 
+    // The size of the blocks written to the part files.
+    private int writeBlockSize = 1024 * 1024;
+
+    // The number of bytes written to a part file between each flush to the device, zero to never flush.
+    private long syncInterval;
+
     /**
      * Default constructor
      */
@@ -39,7 +50,21 @@ public abstract class AbstractFileSplitterModel implements FileSplitterModel {
      *            The input file.
      */
     protected AbstractFileSplitterModel(File file) {
+        this(file, Charset.defaultCharset());
+    }
+
+    /**
+     * Constructor that accepts an input {@link File} and its {@link Charset} as parameters.
+     * 
+     * @param file
+     *            The input file.
+     * 
+     * @param charset
+     *            The charset used to read the input file and to write the part files.
+     */
+    protected AbstractFileSplitterModel(File file, Charset charset) {
         this.file = file;
+        this.charset = charset == null ? Charset.defaultCharset() : charset;
     }
 
     /**
@@ -90,11 +115,47 @@ public abstract class AbstractFileSplitterModel implements FileSplitterModel {
     }
 
     /**
+     * Sets the number of bytes written to each part file between each flush of its data to the device.<br>
+     * Keeps the dirty pages of the part files bounded, giving predictable latency under memory pressure, at the cost of some throughput.
+     * 
+     * @param syncInterval
+     *            The number of bytes, or <code>0</code> to leave the flushes to the operating system, the default.
+     * 
+     * @return This object itself, allowing enchained calls.
+     */
+    public AbstractFileSplitterModel setSyncInterval(long syncInterval) {
+        if (syncInterval < 0) {
+            throw new IllegalArgumentException("The 'syncInterval' parameter cannot be negative");
+        }
+        this.syncInterval = syncInterval;
+        return this;
+    }
+
+    /**
+     * Sets the size of the blocks written to the part files.
+     * 
+     * @param writeBlockSize
+     *            The size of the blocks, rounded up to a multiple of {@link PartOutputStream#ALIGNMENT}, 1 MB by default.
+     * 
+     * @return This object itself, allowing enchained calls.
+     */
+    public AbstractFileSplitterModel setWriteBlockSize(int writeBlockSize) {
+        if (writeBlockSize <= 0) {
+            throw new IllegalArgumentException("The 'writeBlockSize' parameter must be positive");
+        }
+        this.writeBlockSize = writeBlockSize;
+        return this;
+    }
+
+    /**
+     * This implementation writes the part file with the {@link #getCharset() charset} of this model, through the stream returned by
+     * {@link #openPart(File)}.
+     * 
      * @see FileSplitterModel#startWriting(File, PrintWriter)
      */
     @Override
     public PrintWriter startWriting(File partFile) throws IOException {
-        return new PrintWriter(new BufferedWriter(new FileWriter(partFile)));
+        return new PrintWriter(new BufferedWriter(new OutputStreamWriter(openPart(partFile), getCharset()), IO.BLOCK_SIZE));
     }
 
     /**
@@ -103,6 +164,30 @@ public abstract class AbstractFileSplitterModel implements FileSplitterModel {
     @Override
     public void stopWriting(File partFile, PrintWriter writer) throws IOException {}
 
+    /**
+     * Gets the {@link Charset} used to read the input file and to write the part files.<br>
+     * By default it is the platform default charset.
+     * 
+     * @return The charset of this model.
+     */
+    protected Charset getCharset() {
+        return charset;
+    }
+
+    /**
+     * Returns the expected size in bytes of each part file, used to reserve its space when it is opened.<br>
+     * This implementation divides the size of the {@link #getFile() input file} by the {@link #getParts() number of parts}.
+     * 
+     * @return The expected size of each part file, or <code>0</code> if unknown.
+     */
+    protected long getExpectedPartSize() {
+        File file = getFile();
+        if (file == null || parts <= 0) {
+            return 0;
+        }
+        return (file.length() + parts - 1) / parts;
+    }
+
     /**
      * Gets the enclosed {@link File} if any.
      * 
@@ -141,4 +226,21 @@ public abstract class AbstractFileSplitterModel implements FileSplitterModel {
     protected int getPartSize() {
         return partSize;
     }
-}
\ No newline at end of file
+
+    /**
+     * Opens the stream used to write a part file.<br>
+     * This implementation returns a {@link PartOutputStream} that reserves the {@link #getExpectedPartSize() expected size} of the part and writes it
+     * with the {@link #setWriteBlockSize(int) block size} and {@link #setSyncInterval(long) sync interval} of this model.
+     * 
+     * @param partFile
+     *            The part file.
+     * 
+     * @return The stream used to write the part file.
+     * 
+     * @throws IOException
+     *             If the part file cannot be opened.
+     */
+    protected OutputStream openPart(File partFile) throws IOException {
+        return new PartOutputStream(partFile, getExpectedPartSize(), writeBlockSize, syncInterval);
+    }
+}
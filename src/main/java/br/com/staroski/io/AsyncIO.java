@@ -0,0 +1,467 @@
+package br.com.staroski.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.CompletionHandler;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Classe utilit&aacute;ria para opera&ccedil;&otilde;es de I/O ass&iacute;ncronas.<br>
+ * As opera&ccedil;&otilde;es retornam imediatamente um {@link CompletableFuture} e s&atilde;o executadas com {@link AsynchronousFileChannel}, sem prender a
+ * thread chamadora.<br>
+ * No m&aacute;ximo {@link #MAX_CONCURRENT_PER_DIRECTORY} opera&ccedil;&otilde;es s&atilde;o executadas ao mesmo tempo sobre um mesmo diret&oacute;rio de
+ * destino, as demais aguardam numa fila sem ocupar threads.
+ *
+ * @author Ricardo Artur Staroski
+ */
+public final class AsyncIO {
+
+    /**
+     * Limita a quantidade de opera&ccedil;&otilde;es simult&acirc;neas de um diret&oacute;rio
+     */
+    private static final class Limiter {
+
+        int active;
+        final Queue<Runnable> waiting = new ArrayDeque<Runnable>();
+    }
+
+    /**
+     * Copia o conte&uacute;do de um canal para outro, bloco a bloco
+     */
+    private static final class Copy implements CompletionHandler<Integer, Void> {
+
+        private final AsynchronousFileChannel from;
+        private final AsynchronousFileChannel to;
+        private final ByteBuffer buffer = ByteBuffer.allocate(IO.BLOCK_SIZE);
+        private final CompletableFuture<Void> result = new CompletableFuture<Void>();
+        private long position;
+        private boolean writing;
+
+        Copy(AsynchronousFileChannel from, AsynchronousFileChannel to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public void completed(Integer count, Void attachment) {
+            if (writing) {
+                position += count;
+                if (buffer.hasRemaining()) {
+                    to.write(buffer, position, null, this);
+                } else {
+                    read();
+                }
+            } else if (count < 0) {
+                result.complete(null);
+            } else {
+                ((Buffer) buffer).flip();
+                writing = true;
+                to.write(buffer, position, null, this);
+            }
+        }
+
+        @Override
+        public void failed(Throwable error, Void attachment) {
+            result.completeExceptionally(error);
+        }
+
+        CompletableFuture<Void> start() {
+            read();
+            return result;
+        }
+
+        private void read() {
+            ((Buffer) buffer).clear();
+            writing = false;
+            from.read(buffer, position, null, this);
+        }
+    }
+
+    /**
+     * L&ecirc; as linhas de um canal, decodificando um buffer por vez
+     */
+    private static final class ReadLines implements CompletionHandler<Integer, Void> {
+
+        private final AsynchronousFileChannel from;
+        private final CharsetDecoder decoder;
+        private final ByteBuffer buffer = ByteBuffer.allocate(IO.BLOCK_SIZE * 8);
+        private final CharBuffer chars = CharBuffer.allocate(IO.BLOCK_SIZE * 8);
+        private final StringBuilder line = new StringBuilder();
+        private final List<String> lines = new ArrayList<String>();
+        private final CompletableFuture<List<String>> result = new CompletableFuture<List<String>>();
+        private long position;
+        private boolean skipLineFeed; // a última linha terminou com '\r'
+
+        ReadLines(AsynchronousFileChannel from, Charset charset) {
+            this.from = from;
+            this.decoder = charset.newDecoder() //
+                    .onMalformedInput(CodingErrorAction.REPLACE) //
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        }
+
+        @Override
+        public void completed(Integer count, Void attachment) {
+            try {
+                ((Buffer) buffer).flip();
+                if (count < 0) {
+                    decode(true);
+                    if (line.length() > 0) {
+                        lines.add(line.toString());
+                    }
+                    result.complete(lines);
+                    return;
+                }
+                decode(false);
+                buffer.compact();
+                position += count;
+                from.read(buffer, position, null, this);
+            } catch (Throwable error) {
+                result.completeExceptionally(error);
+            }
+        }
+
+        @Override
+        public void failed(Throwable error, Void attachment) {
+            result.completeExceptionally(error);
+        }
+
+        CompletableFuture<List<String>> start() {
+            from.read(buffer, 0, null, this);
+            return result;
+        }
+
+        // decodifica os bytes do buffer, separando as linhas como o BufferedReader
+        private void decode(boolean end) {
+            while (decoder.decode(buffer, chars, end).isOverflow()) {
+                split();
+            }
+            if (end) {
+                while (decoder.flush(chars).isOverflow()) {
+                    split();
+                }
+            }
+            split();
+        }
+
+        // separa as linhas completas dos caracteres decodificados, guardando o início da próxima linha
+        private void split() {
+            char[] array = chars.array();
+            int limit = chars.position();
+            int start = 0;
+            if (skipLineFeed && limit > 0) {
+                skipLineFeed = false;
+                if (array[0] == '\n') {
+                    start = 1;
+                }
+            }
+            for (int i = start; i < limit; i++) {
+                char c = array[i];
+                if (c == '\n' || c == '\r') {
+                    line.append(array, start, i - start);
+                    lines.add(line.toString());
+                    line.setLength(0);
+                    if (c == '\r') {
+                        if (i + 1 == limit) {
+                            skipLineFeed = true;
+                        } else if (array[i + 1] == '\n') {
+                            i++;
+                        }
+                    }
+                    start = i + 1;
+                }
+            }
+            line.append(array, start, limit - start);
+            ((Buffer) chars).clear();
+        }
+    }
+
+    /**
+     * Codifica e grava as linhas num canal, um buffer por vez
+     */
+    private static final class Write implements CompletionHandler<Integer, Void> {
+
+        private static final CharBuffer EMPTY = CharBuffer.allocate(0);
+
+        private final AsynchronousFileChannel to;
+        private final Iterator<? extends CharSequence> lines;
+        private final CharsetEncoder encoder;
+        private final CharBuffer separator = CharBuffer.wrap(System.lineSeparator());
+        private final ByteBuffer buffer = ByteBuffer.allocate(IO.BLOCK_SIZE * 8);
+        private final CompletableFuture<Void> result = new CompletableFuture<Void>();
+        private CharBuffer chars;
+        private boolean needSeparator;
+        private boolean done;
+        private long position;
+
+        Write(AsynchronousFileChannel to, Iterator<? extends CharSequence> lines, Charset charset) {
+            this.to = to;
+            this.lines = lines;
+            this.encoder = charset.newEncoder() //
+                    .onMalformedInput(CodingErrorAction.REPLACE) //
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        }
+
+        @Override
+        public void completed(Integer count, Void attachment) {
+            position += count;
+            try {
+                next();
+            } catch (Throwable error) {
+                result.completeExceptionally(error);
+            }
+        }
+
+        @Override
+        public void failed(Throwable error, Void attachment) {
+            result.completeExceptionally(error);
+        }
+
+        CompletableFuture<Void> start() {
+            ((Buffer) buffer).flip();
+            completed(0, null);
+            return result;
+        }
+
+        // grava o que restou no buffer ou codifica mais linhas nele
+        private void next() {
+            if (!buffer.hasRemaining()) {
+                if (done) {
+                    result.complete(null);
+                    return;
+                }
+                ((Buffer) buffer).clear();
+                done = fill();
+                ((Buffer) buffer).flip();
+                if (!buffer.hasRemaining()) {
+                    result.complete(null);
+                    return;
+                }
+            }
+            to.write(buffer, position, null, this);
+        }
+
+        // codifica as linhas até encher o buffer, retorna true se todas foram codificadas
+        // o encoder só é descarregado no final, senão charsets como UTF-16 gravariam o BOM antes de cada linha
+        private boolean fill() {
+            while (true) {
+                if (chars == null) {
+                    if (!lines.hasNext()) {
+                        return !encoder.encode(EMPTY, buffer, true).isOverflow() && !encoder.flush(buffer).isOverflow();
+                    }
+                    if (needSeparator) {
+                        ((Buffer) separator).rewind();
+                        chars = separator;
+                        needSeparator = false;
+                    } else {
+                        chars = CharBuffer.wrap(lines.next());
+                        needSeparator = true;
+                    }
+                }
+                if (encoder.encode(chars, buffer, true).isOverflow()) {
+                    return false;
+                }
+                chars = null;
+            }
+        }
+    }
+
+    /**
+     * Quantidade m&aacute;xima de opera&ccedil;&otilde;es executadas ao mesmo tempo sobre um mesmo diret&oacute;rio de destino.
+     */
+    public static int MAX_CONCURRENT_PER_DIRECTORY = 4;
+
+    // limitadores de cada diretório com operações em andamento
+    private static final Map<File, Limiter> LIMITERS = new HashMap<File, Limiter>();
+
+    /**
+     * Copia o arquivo de origem para o arquivo de destino de forma ass&iacute;ncrona.
+     *
+     * @param from
+     *            O arquivo de origem.
+     * @param to
+     *            O arquivo de destino.
+     * @return O future que &eacute; completado quando a c&oacute;pia termina.
+     */
+    public static CompletableFuture<Void> copy(File from, File to) {
+        return schedule(to, () -> {
+            AsynchronousFileChannel input = null;
+            AsynchronousFileChannel output = null;
+            try {
+                input = AsynchronousFileChannel.open(from.toPath(), StandardOpenOption.READ);
+                output = AsynchronousFileChannel.open(to.toPath(), StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+            } catch (IOException e) {
+                closeQuietly(input);
+                return failed(e);
+            }
+            return closing(new Copy(input, output).start(), input, output) //
+                    .thenRun(() -> to.setLastModified(from.lastModified()));
+        });
+    }
+
+    /**
+     * Apaga o arquivo informado de forma ass&iacute;ncrona
+     *
+     * @param file
+     *            O arquivo a ser apagado
+     * @return O future que &eacute; completado com <code>true</code> se o arquivo foi apagado ou <code>false</code> se ele n&atilde;o existia.
+     */
+    public static CompletableFuture<Boolean> delete(File file) {
+        return schedule(file, () -> CompletableFuture.supplyAsync(() -> {
+            try {
+                return Files.deleteIfExists(file.toPath());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }));
+    }
+
+    /**
+     * Obt&eacute;m todas as linhas do arquivo informado de forma ass&iacute;ncrona, decodificando-as com o charset informado
+     *
+     * @param file
+     *            O arquivo do qual se deseja ler as linhas
+     * @param charset
+     *            O charset do arquivo
+     * @return O future que &eacute; completado com a lista de contendo as linhas do arquivo
+     */
+    public static CompletableFuture<List<String>> readLines(File file, Charset charset) {
+        return schedule(file, () -> {
+            AsynchronousFileChannel input = null;
+            try {
+                input = AsynchronousFileChannel.open(file.toPath(), StandardOpenOption.READ);
+            } catch (IOException e) {
+                return failed(e);
+            }
+            return closing(new ReadLines(input, charset).start(), input);
+        });
+    }
+
+    /**
+     * Grava as linhas no arquivo informado de forma ass&iacute;ncrona, codificando-as com o charset informado
+     *
+     * @param file
+     *            O arquivo no qual se deseja gravar as linhas
+     * @param lines
+     *            As linhas a serem gravadas
+     * @param charset
+     *            O charset do arquivo
+     * @return O future que &eacute; completado quando todas as linhas foram gravadas.
+     */
+    public static CompletableFuture<Void> writeLines(File file, List<? extends CharSequence> lines, Charset charset) {
+        return schedule(file, () -> {
+            AsynchronousFileChannel output = null;
+            try {
+                output = AsynchronousFileChannel.open(file.toPath(), StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+            } catch (IOException e) {
+                return failed(e);
+            }
+            return closing(new Write(output, lines.iterator(), charset).start(), output);
+        });
+    }
+
+    // fecha os canais quando o future terminar, com sucesso ou não
+    private static <T> CompletableFuture<T> closing(CompletableFuture<T> future, AsynchronousFileChannel... channels) {
+        return future.whenComplete((value, error) -> {
+            for (AsynchronousFileChannel channel : channels) {
+                closeQuietly(channel);
+            }
+        });
+    }
+
+    private static void closeQuietly(AsynchronousFileChannel channel) {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // não há o que fazer
+            }
+        }
+    }
+
+    private static <T> CompletableFuture<T> failed(Throwable error) {
+        CompletableFuture<T> future = new CompletableFuture<T>();
+        future.completeExceptionally(error);
+        return future;
+    }
+
+    // libera a vaga do diretório, repassando-a para a próxima operação da fila
+    // a próxima operação é iniciada em outra thread, senão operações que falham de imediato se encadeariam na mesma pilha
+    private static void release(File directory) {
+        Runnable next;
+        synchronized (LIMITERS) {
+            Limiter limiter = LIMITERS.get(directory);
+            next = limiter.waiting.poll();
+            if (next == null && --limiter.active == 0) {
+                LIMITERS.remove(directory);
+            }
+        }
+        if (next != null) {
+            CompletableFuture.runAsync(next);
+        }
+    }
+
+    // executa a operação assim que houver vaga no diretório do arquivo de destino
+    private static <T> CompletableFuture<T> schedule(File target, Supplier<CompletableFuture<T>> operation) {
+        final File directory = target.getAbsoluteFile().getParentFile();
+        final CompletableFuture<T> result = new CompletableFuture<T>();
+        Runnable start = () -> {
+            CompletableFuture<T> future;
+            try {
+                future = operation.get();
+            } catch (Throwable error) {
+                future = failed(error);
+            }
+            future.whenComplete((value, error) -> {
+                try {
+                    release(directory);
+                } finally {
+                    if (error != null) {
+                        result.completeExceptionally(error);
+                    } else {
+                        result.complete(value);
+                    }
+                }
+            });
+        };
+        boolean now;
+        synchronized (LIMITERS) {
+            Limiter limiter = LIMITERS.get(directory);
+            if (limiter == null) {
+                limiter = new Limiter();
+                LIMITERS.put(directory, limiter);
+            }
+            now = limiter.active < Math.max(MAX_CONCURRENT_PER_DIRECTORY, 1);
+            if (now) {
+                limiter.active++;
+            } else {
+                limiter.waiting.add(start);
+            }
+        }
+        if (now) {
+            start.run();
+        }
+        return result;
+    }
+
+    // não faz sentido instanciar esta classe
+    private AsyncIO() {}
+}
@@ -0,0 +1,222 @@
+package br.com.staroski.io;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Grupo de escritas atômicas de arquivos: cada arquivo é escrito num arquivo temporário ao lado do destino e só substitui o destino em
+ * {@link #commit()}, então uma queda no meio da escrita nunca deixa um destino escrito pela metade, ele continua com o conteúdo anterior ou passa a ter
+ * o novo conteúdo completo.<br>
+ * No {@link #commit()} todos os arquivos temporários são enviados ao disco de uma só vez, com vários <code>fsync</code> simultâneos que o sistema de
+ * arquivos pode juntar numa única gravação do seu journal, depois são movidos para os destinos e, por fim, cada diretório envolvido é enviado ao disco
+ * uma única vez. Assim o custo de durabilidade de muitos arquivos pequenos escritos juntos fica próximo ao de um só.<br>
+ * Os destinos substituídos mantêm as suas permissões POSIX e os destinos novos são criados com as permissões padrão do sistema.<br>
+ * Fechar o grupo sem o {@link #commit()} descarta as escritas pendentes. A classe não é sincronizada.
+ *
+ * @see IO#copyAtomic(File, File)
+ * @see IO#writeLinesAtomic(File, List, Charset)
+ */
+public final class AtomicWriteBatch implements Closeable {
+
+    private static final int MAX_SYNC_THREADS = 8;
+
+    // arquivos temporários pendentes, pelo destino
+    private final Map<File, File> pending = new LinkedHashMap<File, File>();
+
+    /**
+     * Descarta as escritas que não foram efetivadas, apagando os seus arquivos temporários.
+     */
+    @Override
+    public void close() throws IOException {
+        IOException failure = null;
+        for (File temp : pending.values()) {
+            try {
+                IO.delete(temp);
+            } catch (IOException e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        pending.clear();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Efetiva as escritas pendentes: envia todos os arquivos temporários ao disco, move cada um para o seu destino, substituindo-o atomicamente, e
+     * envia ao disco os diretórios dos destinos.<br>
+     * Se falhar antes de mover algum arquivo, nenhum destino é alterado e as escritas continuam pendentes.
+     *
+     * @throws IOException
+     *             se algum arquivo não puder ser enviado ao disco ou movido.
+     */
+    public void commit() throws IOException {
+        if (pending.isEmpty()) {
+            return;
+        }
+        sync(new ArrayList<File>(pending.values()));
+        // só depois de enviar ao disco, que precisa abrir o arquivo para escrita e falharia se o destino fosse somente leitura
+        for (Map.Entry<File, File> entry : pending.entrySet()) {
+            copyPermissions(entry.getKey().toPath(), entry.getValue().toPath());
+        }
+        Set<File> folders = new LinkedHashSet<File>();
+        for (Map.Entry<File, File> entry : new ArrayList<Map.Entry<File, File>>(pending.entrySet())) {
+            move(entry.getValue().toPath(), entry.getKey().toPath());
+            pending.remove(entry.getKey());
+            folders.add(entry.getKey().getAbsoluteFile().getParentFile());
+        }
+        for (File folder : folders) {
+            syncFolder(folder.toPath());
+        }
+    }
+
+    /**
+     * Copia o arquivo de origem para o arquivo temporário do destino informado.
+     *
+     * @param from
+     *            O arquivo de origem.
+     * @param to
+     *            O arquivo de destino, substituído no {@link #commit()}.
+     */
+    public void copy(File from, File to) throws IOException {
+        IO.copy(from, temp(to));
+    }
+
+    /**
+     * Cria um stream para escrever no arquivo temporário do destino informado.<br>
+     * O stream deve ser fechado antes do {@link #commit()}.
+     *
+     * @param file
+     *            O arquivo de destino, substituído no {@link #commit()}.
+     */
+    public OutputStream newOutputStream(File file) throws IOException {
+        return new FileOutputStream(temp(file));
+    }
+
+    /**
+     * Escreve as linhas informadas no arquivo temporário do destino informado.
+     *
+     * @param file
+     *            O arquivo de destino, substituído no {@link #commit()}.
+     * @param lines
+     *            As linhas a serem escritas.
+     * @param charset
+     *            O charset do arquivo.
+     */
+    public void writeLines(File file, List<String> lines, Charset charset) throws IOException {
+        IO.writeLines(temp(file), lines, charset);
+    }
+
+    // o arquivo temporário fica com as mesmas permissões do destino que ele vai substituir, senão com as permissões padrão da criação de arquivos
+    private static void copyPermissions(Path target, Path temp) throws IOException {
+        if (!Files.exists(target)) {
+            return;
+        }
+        try {
+            Files.setPosixFilePermissions(temp, Files.getPosixFilePermissions(target));
+        } catch (UnsupportedOperationException e) {
+            // sistema de arquivos sem permissões POSIX, como no Windows
+        }
+    }
+
+    // move o arquivo temporário para o destino, de forma atômica sempre que o sistema de arquivos permitir
+    private static void move(Path temp, Path target) throws IOException {
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    // envia os arquivos ao disco ao mesmo tempo, para que o sistema de arquivos junte as gravações
+    private static void sync(List<File> files) throws IOException {
+        if (files.size() == 1) {
+            syncFile(files.get(0).toPath());
+            return;
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(files.size(), MAX_SYNC_THREADS));
+        try {
+            List<Future<Void>> results = new ArrayList<Future<Void>>(files.size());
+            for (final File file : files) {
+                results.add(pool.submit(() -> {
+                    syncFile(file.toPath());
+                    return null;
+                }));
+            }
+            for (Future<Void> result : results) {
+                result.get();
+            }
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof IOException ? (IOException) cause : new IOException(cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Commit interrompido", e);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static void syncFile(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+    }
+
+    // envia o diretório ao disco, para que a troca dos nomes também sobreviva a uma queda
+    private static void syncFolder(Path folder) {
+        try (FileChannel channel = FileChannel.open(folder, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // nem todos os sistemas permitem abrir diretórios, como o Windows
+        }
+    }
+
+    // cria o arquivo temporário do destino informado, ao lado dele para que possa ser movido atomicamente
+    private File temp(File file) throws IOException {
+        File target = file.getAbsoluteFile();
+        File previous = pending.remove(target);
+        if (previous != null) {
+            IO.delete(previous); // o destino foi escrito de novo, vale a última escrita
+        }
+        File folder = target.getParentFile();
+        folder.mkdirs();
+        // o Files.createTempFile criaria o arquivo só com permissão para o dono, que seria mantida ao mover, já o Files.createFile usa o padrão do sistema
+        while (true) {
+            File temp = new File(folder, "." + target.getName() + "." + Long.toHexString(ThreadLocalRandom.current().nextLong()) + ".tmp");
+            try {
+                Files.createFile(temp.toPath());
+            } catch (FileAlreadyExistsException e) {
+                continue;
+            }
+            pending.put(target, temp);
+            return temp;
+        }
+    }
+}
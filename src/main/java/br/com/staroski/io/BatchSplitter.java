@@ -0,0 +1,366 @@
+package br.com.staroski.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileStore;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class splits many files concurrently, each one with its own {@link FileSplitterModel} and output folder.<br>
+ * The files are split by a bounded pool of threads, with the largest files started first, so the long splits do not end up running alone at the end of
+ * the batch.<br>
+ * To avoid thrashing a single disk, at most {@link #getMaxConcurrentPerStore()} splits read from or write to the same {@link FileStore} at a time,
+ * while files on other devices keep being split.<br>
+ * A failed split does not stop the batch, its exception is reported in the {@link Report} returned by {@link #run()}.
+ *
+ * @author Ricardo Artur Staroski
+ */
+public final class BatchSplitter {
+
+    /**
+     * Summary of a batch run.
+     *
+     * @author Ricardo Artur Staroski
+     */
+    public static final class Report {
+
+        private final Map<File, File[]> parts;
+        private final Map<File, Exception> failures;
+        private final long bytes;
+        private final long elapsedNanos;
+
+        private Report(Map<File, File[]> parts, Map<File, Exception> failures, long bytes, long elapsedNanos) {
+            this.parts = Collections.unmodifiableMap(parts);
+            this.failures = Collections.unmodifiableMap(failures);
+            this.bytes = bytes;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        /**
+         * Returns the total size of the files that were split successfully.
+         *
+         * @return The number of bytes split.
+         */
+        public long getBytes() {
+            return bytes;
+        }
+
+        /**
+         * Returns the throughput of the whole batch.
+         *
+         * @return The number of bytes split per second.
+         */
+        public double getBytesPerSecond() {
+            return elapsedNanos == 0 ? 0 : bytes * 1e9 / elapsedNanos;
+        }
+
+        /**
+         * Returns the wall clock time of the whole batch.
+         *
+         * @param unit
+         *            The desired time unit.
+         *
+         * @return The elapsed time.
+         */
+        public long getElapsed(TimeUnit unit) {
+            return unit.convert(elapsedNanos, TimeUnit.NANOSECONDS);
+        }
+
+        /**
+         * Returns the exceptions thrown by the splits that failed, by input file.
+         *
+         * @return The failures, empty if all files were split.
+         */
+        public Map<File, Exception> getFailures() {
+            return failures;
+        }
+
+        /**
+         * Returns the part files created for each input file split successfully, in the order they finished.
+         *
+         * @return The part files by input file.
+         */
+        public Map<File, File[]> getParts() {
+            return parts;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d files, %d bytes in %d ms (%.1f MB/s), %d failures", parts.size(), bytes, getElapsed(TimeUnit.MILLISECONDS),
+                    getBytesPerSecond() / (1024 * 1024), failures.size());
+        }
+    }
+
+    // a file to be split and the devices it uses
+    private static final class Task {
+
+        final File input;
+        final FileSplitterModel model;
+        final File outputFolder;
+        final int parts;
+        final long size;
+        final List<Object> stores = new ArrayList<>(2);
+
+        Task(File input, FileSplitterModel model, File outputFolder, int parts) {
+            this.input = input;
+            this.model = model;
+            this.outputFolder = outputFolder;
+            this.parts = parts;
+            this.size = input.length();
+        }
+    }
+
+    private final int threads;
+    private int maxConcurrentPerStore = 2;
+    private final List<Task> tasks = new ArrayList<>();
+
+    // splits running on each device, guarded by this object while the batch runs
+    private final Map<Object, Integer> running = new HashMap<>();
+
+    /**
+     * Creates a {@link BatchSplitter} with one thread per available processor.
+     */
+    public BatchSplitter() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a {@link BatchSplitter} with the given number of threads.
+     *
+     * @param threads
+     *            The maximum number of files split at the same time.
+     */
+    public BatchSplitter(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("The 'threads' parameter must be positive");
+        }
+        this.threads = threads;
+    }
+
+    /**
+     * Adds a file to be split with the default model, as by {@link FileSplitter#FileSplitter(File)}.
+     *
+     * @param input
+     *            The file to be split.
+     *
+     * @param outputFolder
+     *            The folder where the parts will be written.
+     *
+     * @param parts
+     *            The number of parts.
+     *
+     * @return This object itself, allowing enchained calls.
+     */
+    public BatchSplitter add(File input, File outputFolder, int parts) {
+        return add(input, null, outputFolder, parts);
+    }
+
+    /**
+     * Adds a file to be split with the given model.
+     *
+     * @param input
+     *            The file read by the model, used to prioritize the batch by size and to find its device.
+     *
+     * @param model
+     *            The model used to split the file, or <code>null</code> to use the default one.
+     *
+     * @param outputFolder
+     *            The folder where the parts will be written.
+     *
+     * @param parts
+     *            The number of parts.
+     *
+     * @return This object itself, allowing enchained calls.
+     */
+    public synchronized BatchSplitter add(File input, FileSplitterModel model, File outputFolder, int parts) {
+        if (input == null || outputFolder == null) {
+            throw new IllegalArgumentException("The 'input' and 'outputFolder' parameters cannot be null");
+        }
+        tasks.add(new Task(input, model, outputFolder, parts));
+        return this;
+    }
+
+    /**
+     * Returns the maximum number of splits that read from or write to the same device at a time.
+     *
+     * @return The limit per device, <code>2</code> by default.
+     */
+    public int getMaxConcurrentPerStore() {
+        return maxConcurrentPerStore;
+    }
+
+    /**
+     * Splits all files added so far and clears the batch.<br>
+     * Blocks until every file is split or failed.
+     *
+     * @return The summary of the batch.
+     *
+     * @throws InterruptedException
+     *             If the calling thread is interrupted while waiting, the splits already started are interrupted too.
+     */
+    public Report run() throws InterruptedException {
+        final List<Task> pending;
+        synchronized (this) {
+            pending = new ArrayList<>(tasks);
+            tasks.clear();
+            running.clear();
+        }
+        for (Task task : pending) {
+            task.stores.add(store(task.input));
+            Object output = store(task.outputFolder);
+            if (!output.equals(task.stores.get(0))) {
+                task.stores.add(output);
+            }
+        }
+        // longest processing time first: the largest files start first and the small ones fill the gaps at the end
+        Collections.sort(pending, Comparator.comparingLong((Task task) -> task.size).reversed());
+        final Map<File, File[]> parts = new LinkedHashMap<>();
+        final Map<File, Exception> failures = new LinkedHashMap<>();
+        final long[] bytes = new long[1];
+        final long start = System.nanoTime();
+        int workers = Math.min(threads, Math.max(pending.size(), 1));
+        ExecutorService pool = Executors.newFixedThreadPool(workers);
+        try {
+            for (int i = 0; i < workers; i++) {
+                pool.execute(() -> {
+                    Task task;
+                    while ((task = take(pending)) != null) {
+                        try {
+                            FileSplitter splitter = task.model == null ? new FileSplitter(task.input) : new FileSplitter(task.model);
+                            File[] files = splitter.setOutputFolder(task.outputFolder).split(task.parts);
+                            synchronized (parts) {
+                                parts.put(task.input, files);
+                                bytes[0] += task.size;
+                            }
+                        } catch (Exception e) {
+                            synchronized (parts) {
+                                failures.put(task.input, e);
+                            }
+                        } finally {
+                            release(task);
+                        }
+                    }
+                });
+            }
+            pool.shutdown();
+            pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } finally {
+            pool.shutdownNow();
+        }
+        synchronized (parts) {
+            return new Report(parts, failures, bytes[0], System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Sets the maximum number of splits that read from or write to the same device at a time.
+     *
+     * @param maxConcurrentPerStore
+     *            The limit per device.
+     *
+     * @return This object itself, allowing enchained calls.
+     */
+    public synchronized BatchSplitter setMaxConcurrentPerStore(int maxConcurrentPerStore) {
+        if (maxConcurrentPerStore < 1) {
+            throw new IllegalArgumentException("The 'maxConcurrentPerStore' parameter must be positive");
+        }
+        this.maxConcurrentPerStore = maxConcurrentPerStore;
+        return this;
+    }
+
+    /**
+     * Finds the device of the given file, or of its closest existing ancestor.
+     *
+     * @param file
+     *            The file.
+     *
+     * @return The {@link FileStore} of the file or its absolute path when it cannot be determined.
+     */
+    private static Object store(File file) {
+        Path path = file.getAbsoluteFile().toPath();
+        for (Path current = path; current != null; current = current.getParent()) {
+            if (Files.exists(current)) {
+                try {
+                    return Files.getFileStore(current);
+                } catch (IOException e) {
+                    break;
+                }
+            }
+        }
+        return path;
+    }
+
+    /**
+     * Checks if all devices of the task are below the limit.
+     *
+     * @param task
+     *            The task.
+     *
+     * @return <code>true</code> if the task can be started now.
+     */
+    private boolean available(Task task) {
+        for (Object store : task.stores) {
+            Integer count = running.get(store);
+            if (count != null && count >= maxConcurrentPerStore) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Called when a split finishes, frees its devices for the waiting threads.
+     *
+     * @param task
+     *            The finished task.
+     */
+    private synchronized void release(Task task) {
+        for (Object store : task.stores) {
+            running.put(store, running.get(store) - 1);
+        }
+        notifyAll();
+    }
+
+    /**
+     * Removes the largest pending task whose devices are below the limit, waiting for a running split to finish when there is none.
+     *
+     * @param pending
+     *            The pending tasks, from the largest to the smallest.
+     *
+     * @return The next task, or <code>null</code> if there are no more tasks or the thread was interrupted.
+     */
+    private synchronized Task take(List<Task> pending) {
+        while (!pending.isEmpty()) {
+            for (Iterator<Task> iterator = pending.iterator(); iterator.hasNext();) {
+                Task task = iterator.next();
+                if (available(task)) {
+                    iterator.remove();
+                    for (Object store : task.stores) {
+                        Integer count = running.get(store);
+                        running.put(store, count == null ? 1 : count + 1);
+                    }
+                    return task;
+                }
+            }
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+}
@@ -0,0 +1,287 @@
+package br.com.staroski.io;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Escritor de texto para grandes volumes de saída, que acumula os bytes num buffer e só os repassa ao {@link OutputStream} quando o buffer enche ou quando
+ * {@link #flush()} é chamado.<br>
+ * Os números são escritos direto como bytes pelo {@link Numbers}, sem criar {@link String}s intermediárias.<br>
+ * Esta classe não é sincronizada, cada instância deve ser usada por uma única thread.
+ */
+public final class BulkWriter implements Closeable, Flushable {
+
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private static final byte[] TRUE = { 't', 'r', 'u', 'e' };
+    private static final byte[] FALSE = { 'f', 'a', 'l', 's', 'e' };
+    private static final byte[] NULL = { 'n', 'u', 'l', 'l' };
+
+    private final OutputStream output;
+    private final CharsetEncoder encoder;
+    private final boolean asciiCompatible;
+    private final byte[] lineSeparator;
+    private final byte[] buffer;
+    private int count;
+
+    public BulkWriter(OutputStream output) {
+        this(output, Charset.defaultCharset());
+    }
+
+    public BulkWriter(OutputStream output, Charset charset) {
+        this(output, charset, DEFAULT_BUFFER_SIZE);
+    }
+
+    public BulkWriter(OutputStream output, Charset charset, int bufferSize) {
+        this.output = output;
+        this.encoder = charset.newEncoder() //
+                .onMalformedInput(CodingErrorAction.REPLACE) //
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.asciiCompatible = ByteLineReader.isLineTransparent(charset);
+        this.lineSeparator = System.lineSeparator().getBytes(StandardCharsets.US_ASCII); // recodificado por write se o charset não for compatível
+        this.buffer = new byte[Math.max(bufferSize, Numbers.MAX_FIXED_LENGTH)];
+    }
+
+    /**
+     * Termina a codificação, descarrega o buffer e fecha o {@link OutputStream}.
+     */
+    @Override
+    public void close() throws IOException {
+        finish();
+        flush();
+        output.close();
+    }
+
+    /**
+     * Repassa os bytes acumulados no buffer ao {@link OutputStream} e o descarrega.
+     */
+    @Override
+    public void flush() throws IOException {
+        drain();
+        output.flush();
+    }
+
+    public BulkWriter print(boolean value) throws IOException {
+        return write(value ? TRUE : FALSE);
+    }
+
+    public BulkWriter print(char value) throws IOException {
+        if (asciiCompatible && value < 0x80) {
+            ensure(1);
+            buffer[count++] = (byte) value;
+            return this;
+        }
+        return encode(CharBuffer.wrap(new char[] { value }));
+    }
+
+    public BulkWriter print(char[] chars) throws IOException {
+        return print(CharBuffer.wrap(chars));
+    }
+
+    public BulkWriter print(CharSequence text) throws IOException {
+        if (text == null) {
+            return write(NULL);
+        }
+        int length = text.length();
+        int index = 0;
+        if (asciiCompatible) {
+            while (index < length) {
+                char c = text.charAt(index);
+                if (c >= 0x80) {
+                    break;
+                }
+                if (count == buffer.length) {
+                    drain();
+                }
+                buffer[count++] = (byte) c;
+                index++;
+            }
+        }
+        return index < length ? encode(CharBuffer.wrap(text, index, length)) : this;
+    }
+
+    /**
+     * Escreve o <code>double</code> com o menor número de dígitos que o representa exatamente, direto como bytes.
+     *
+     * @see Numbers#format(double, byte[], int)
+     */
+    public BulkWriter print(double value) throws IOException {
+        ensure(Numbers.MAX_DOUBLE_LENGTH);
+        int start = count;
+        count = Numbers.format(value, buffer, count);
+        return recode(start);
+    }
+
+    /**
+     * Escreve o <code>double</code> com um número fixo de casas decimais, direto como bytes e sem passar pelo {@link java.util.Formatter}.
+     *
+     * @see Numbers#format(double, int, byte[], int)
+     */
+    public BulkWriter print(double value, int decimals) throws IOException {
+        ensure(Numbers.MAX_FIXED_LENGTH);
+        int start = count;
+        count = Numbers.format(value, decimals, buffer, count);
+        return recode(start);
+    }
+
+    public BulkWriter print(float value) throws IOException {
+        return print(Float.toString(value));
+    }
+
+    public BulkWriter print(int value) throws IOException {
+        return print((long) value);
+    }
+
+    public BulkWriter print(long value) throws IOException {
+        ensure(Numbers.MAX_LONG_LENGTH);
+        int start = count;
+        count = Numbers.format(value, buffer, count);
+        return recode(start);
+    }
+
+    public BulkWriter print(Object object) throws IOException {
+        return print(String.valueOf(object));
+    }
+
+    public BulkWriter print(String text) throws IOException {
+        return print((CharSequence) text);
+    }
+
+    public BulkWriter println() throws IOException {
+        return write(lineSeparator);
+    }
+
+    public BulkWriter println(boolean value) throws IOException {
+        return print(value).println();
+    }
+
+    public BulkWriter println(char value) throws IOException {
+        return print(value).println();
+    }
+
+    public BulkWriter println(char[] chars) throws IOException {
+        return print(chars).println();
+    }
+
+    public BulkWriter println(double value) throws IOException {
+        return print(value).println();
+    }
+
+    public BulkWriter println(double value, int decimals) throws IOException {
+        return print(value, decimals).println();
+    }
+
+    public BulkWriter println(float value) throws IOException {
+        return print(value).println();
+    }
+
+    public BulkWriter println(int value) throws IOException {
+        return print(value).println();
+    }
+
+    public BulkWriter println(long value) throws IOException {
+        return print(value).println();
+    }
+
+    public BulkWriter println(Object object) throws IOException {
+        return print(object).println();
+    }
+
+    public BulkWriter println(String text) throws IOException {
+        return print(text).println();
+    }
+
+    // repassa os bytes acumulados ao stream, sem descarregá-lo
+    private void drain() throws IOException {
+        if (count > 0) {
+            output.write(buffer, 0, count);
+            count = 0;
+        }
+    }
+
+    // codifica os caracteres com o charset, descarregando o buffer sempre que encher
+    // o encoder só é reiniciado na criação, senão charsets como UTF-16 escreveriam o BOM antes de cada texto
+    private BulkWriter encode(CharBuffer chars) throws IOException {
+        ByteBuffer bytes = ByteBuffer.wrap(buffer, count, buffer.length - count);
+        CoderResult result = encoder.encode(chars, bytes, true);
+        while (result.isOverflow()) {
+            count = bytes.position();
+            drain();
+            bytes = ByteBuffer.wrap(buffer);
+            result = encoder.encode(chars, bytes, true);
+        }
+        count = bytes.position();
+        return this;
+    }
+
+    // termina a codificação do stream, uma única vez no fechamento
+    private void finish() throws IOException {
+        CharBuffer empty = CharBuffer.allocate(0);
+        ByteBuffer bytes = ByteBuffer.wrap(buffer, count, buffer.length - count);
+        CoderResult result = encoder.encode(empty, bytes, true);
+        while (result.isOverflow()) {
+            count = bytes.position();
+            drain();
+            bytes = ByteBuffer.wrap(buffer);
+            result = encoder.encode(empty, bytes, true);
+        }
+        result = encoder.flush(bytes);
+        while (result.isOverflow()) {
+            count = bytes.position();
+            drain();
+            bytes = ByteBuffer.wrap(buffer);
+            result = encoder.flush(bytes);
+        }
+        count = bytes.position();
+    }
+
+    // garante que caibam mais n bytes no buffer
+    private void ensure(int n) throws IOException {
+        if (count + n > buffer.length) {
+            drain();
+        }
+    }
+
+    // recodifica os caracteres ASCII escritos no buffer a partir da posição informada, se o charset não for compatível com ASCII
+    private BulkWriter recode(int start) throws IOException {
+        if (asciiCompatible) {
+            return this;
+        }
+        char[] chars = new char[count - start];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = (char) buffer[start + i];
+        }
+        count = start;
+        return encode(CharBuffer.wrap(chars));
+    }
+
+    // escreve bytes de texto ASCII
+    private BulkWriter write(byte[] bytes) throws IOException {
+        if (!asciiCompatible) {
+            char[] chars = new char[bytes.length];
+            for (int i = 0; i < chars.length; i++) {
+                chars[i] = (char) bytes[i];
+            }
+            return encode(CharBuffer.wrap(chars));
+        }
+        if (count + bytes.length > buffer.length) {
+            drain();
+            if (bytes.length > buffer.length) {
+                output.write(bytes);
+                return this;
+            }
+        }
+        System.arraycopy(bytes, 0, buffer, count, bytes.length);
+        count += bytes.length;
+        return this;
+    }
+}
@@ -0,0 +1,201 @@
+package br.com.staroski.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads lines of text as raw bytes, without decoding them to characters.<br>
+ * A line is considered to be terminated by any one of a line feed (<code>'\n'</code>), a carriage return (<code>'\r'</code>), or a carriage return followed
+ * immediately by a line feed, exactly like {@link java.io.BufferedReader#readLine()}.<br>
+ * The content of the current line is available through {@link #buffer()}, {@link #start()} and {@link #end()} and is only valid until the next call to
+ * {@link #next()}.
+ *
+ * @author Ricardo Artur Staroski
+ */
+final class ByteLineReader implements Closeable {
+
+    /**
+     * Checks if the line terminators of the given {@link Charset} are encoded as single <code>'\n'</code> and <code>'\r'</code> bytes that never appear inside
+     * the encoding of other characters, what allows lines to be found and copied without decoding them.
+     *
+     * @param charset
+     *            The charset to be checked.
+     *
+     * @return <code>true</code> if lines encoded with the charset can be handled as raw bytes and <code>false</code> if not.
+     */
+    static boolean isLineTransparent(Charset charset) {
+        return StandardCharsets.UTF_8.equals(charset) //
+                || StandardCharsets.US_ASCII.equals(charset) //
+                || StandardCharsets.ISO_8859_1.equals(charset);
+    }
+
+    // the input stream being read
+    private final InputStream input;
+
+    // the bytes read from the input stream
+    private byte[] buffer;
+
+    // the offset, on the input stream, of the first byte of the buffer
+    private long offset;
+
+    // index of the next byte to be scanned
+    private int position;
+
+    // index after the last valid byte of the buffer
+    private int limit;
+
+    // bounds of the current line content, without the line terminator
+    private int start;
+    private int end;
+
+    // a carriage return ended the last line, so a following line feed must be skipped
+    private boolean skipLineFeed;
+
+    /**
+     * Creates an {@link ByteLineReader} for the given {@link InputStream}.
+     *
+     * @param input
+     *            The input stream to be read.
+     *
+     * @param bufferSize
+     *            The initial size of the buffer, it grows when a line does not fit on it.
+     */
+    ByteLineReader(InputStream input, int bufferSize) {
+        this.input = input;
+        this.buffer = new byte[Math.max(bufferSize, 16)];
+    }
+
+    @Override
+    public void close() throws IOException {
+        input.close();
+    }
+
+    /**
+     * Advances to the next line.
+     *
+     * @return <code>true</code> if a line was read and <code>false</code> if end of stream was reached.
+     *
+     * @throws IOException
+     *             If some I/O operation goes wrong.
+     */
+    boolean next() throws IOException {
+        start = position;
+        if (skipLineFeed) {
+            skipLineFeed = false;
+            if (position < limit || fill()) {
+                if (buffer[position] == '\n') {
+                    start = ++position;
+                }
+            }
+        }
+        while (true) {
+            if (position >= limit && !fill()) {
+                end = position;
+                return position > start; // the last line may not have a terminator
+            }
+            byte b = buffer[position];
+            if (b == '\n' || b == '\r') {
+                end = position++;
+                skipLineFeed = b == '\r';
+                return true;
+            }
+            position++;
+        }
+    }
+
+    /**
+     * Returns the buffer that holds the content of the current line.
+     *
+     * @return The buffer that holds the content of the current line.
+     */
+    byte[] buffer() {
+        return buffer;
+    }
+
+    /**
+     * Returns the index, on the {@link #buffer()}, of the first byte of the current line.
+     *
+     * @return The index of the first byte of the current line.
+     */
+    int start() {
+        return start;
+    }
+
+    /**
+     * Returns the index, on the {@link #buffer()}, after the last byte of the current line content.
+     *
+     * @return The index after the last byte of the current line content, the line terminator is not included.
+     */
+    int end() {
+        return end;
+    }
+
+    /**
+     * Returns the number of bytes of the current line content, the line terminator is not included.
+     *
+     * @return The number of bytes of the current line content.
+     */
+    int length() {
+        return end - start;
+    }
+
+    /**
+     * Returns the offset, on the input stream, of the first byte of the current line.
+     *
+     * @return The offset of the first byte of the current line.
+     */
+    long lineOffset() {
+        return offset + start;
+    }
+
+    /**
+     * Returns the offset, on the input stream, after the terminator of the current line.<br>
+     * When the line ends with a carriage return, a line feed following it is only consumed by the next call to {@link #next()}.
+     *
+     * @return The offset after the terminator of the current line.
+     */
+    long nextOffset() {
+        return offset + position;
+    }
+
+    /**
+     * Decodes the content of the current line.
+     *
+     * @param charset
+     *            The charset used to decode the line.
+     *
+     * @return The content of the current line.
+     */
+    String line(Charset charset) {
+        return new String(buffer, start, end - start, charset);
+    }
+
+    // reads more bytes keeping the current line on the buffer, returns false if end of stream was reached
+    private boolean fill() throws IOException {
+        if (start > 0) {
+            System.arraycopy(buffer, start, buffer, 0, limit - start);
+            offset += start;
+            position -= start;
+            limit -= start;
+            end = Math.max(end - start, 0);
+            start = 0;
+        }
+        if (limit == buffer.length) {
+            byte[] larger = new byte[buffer.length * 2];
+            System.arraycopy(buffer, 0, larger, 0, limit);
+            buffer = larger;
+        }
+        int read;
+        do {
+            read = input.read(buffer, limit, buffer.length - limit);
+        } while (read == 0);
+        if (read < 0) {
+            return false;
+        }
+        limit += read;
+        return true;
+    }
+}
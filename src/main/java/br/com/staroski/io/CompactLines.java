@@ -0,0 +1,182 @@
+package br.com.staroski.io;
+
+import java.nio.charset.Charset;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * Lista de linhas que guarda os bytes codificados das linhas, em vez de objetos {@link String}.<br>
+ * Os bytes de todas as linhas ficam em sequência, em blocos grandes de <code>byte[]</code>, e uma tabela guarda a posição de cada linha, então a memória
+ * ocupada fica próxima do tamanho do arquivo mais 8 bytes por linha, e o coletor de lixo só precisa lidar com poucos objetos grandes.<br>
+ * Cada linha é decodificada ao ser acessada, por isso {@link #get(int)} retorna um novo objeto a cada chamada.<br>
+ * A lista só aceita inclusões no final, como as feitas por {@link IO#readCompactLines(java.io.File, Charset)}, e não é sincronizada.
+ */
+public final class CompactLines extends AbstractList<CharSequence> implements RandomAccess {
+
+    /**
+     * Tamanho padrão, 1MB, dos blocos de bytes.
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 1024 * 1024;
+
+    private final Charset charset;
+    private final int shift;
+    private final int mask;
+    private byte[][] chunks = new byte[8][];
+
+    // offsets[i] é a posição do primeiro byte da linha i e offsets[size] é o total de bytes
+    private long[] offsets = new long[1024];
+    private int size;
+
+    /**
+     * Cria uma lista vazia, cujas linhas são codificadas com o charset informado, com blocos de {@link #DEFAULT_CHUNK_SIZE} bytes.
+     *
+     * @param charset
+     *            O charset das linhas.
+     */
+    public CompactLines(Charset charset) {
+        this(charset, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Cria uma lista vazia, cujas linhas são codificadas com o charset informado.
+     *
+     * @param charset
+     *            O charset das linhas.
+     * @param chunkSize
+     *            O tamanho dos blocos de bytes, arredondado para a próxima potência de dois.
+     */
+    public CompactLines(Charset charset, int chunkSize) {
+        if (charset == null) {
+            throw new IllegalArgumentException("O charset não pode ser nulo");
+        }
+        if (chunkSize < 1 || chunkSize > 1 << 30) {
+            throw new IllegalArgumentException("Tamanho de bloco inválido: " + chunkSize);
+        }
+        this.charset = charset;
+        this.shift = 32 - Integer.numberOfLeadingZeros(chunkSize - 1);
+        this.mask = (1 << shift) - 1;
+    }
+
+    /**
+     * Codifica a linha informada e a inclui no final da lista.
+     */
+    @Override
+    public boolean add(CharSequence line) {
+        byte[] bytes = line.toString().getBytes(charset);
+        add(bytes, 0, bytes.length);
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        chunks = new byte[8][];
+        offsets = new long[1024];
+        size = 0;
+        modCount++;
+    }
+
+    /**
+     * Decodifica a linha informada.
+     *
+     * @param index
+     *            O índice da linha.
+     * @return Uma nova {@link String} com o conteúdo da linha.
+     */
+    @Override
+    public CharSequence get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Índice: " + index + ", tamanho: " + size);
+        }
+        long start = offsets[index];
+        int length = (int) (offsets[index + 1] - start);
+        if (length == 0) {
+            return ""; // a linha vazia pode estar num bloco ainda não alocado
+        }
+        byte[] chunk = chunks[(int) (start >>> shift)];
+        int position = (int) (start & mask);
+        if (position + length <= chunk.length) {
+            return new String(chunk, position, length, charset);
+        }
+        byte[] bytes = new byte[length]; // a linha passa de um bloco para o próximo
+        copy(start, bytes, length);
+        return new String(bytes, 0, length, charset);
+    }
+
+    /**
+     * Retorna o charset das linhas.
+     */
+    public Charset getCharset() {
+        return charset;
+    }
+
+    /**
+     * Retorna a quantidade de bytes codificados de todas as linhas.
+     */
+    public long getByteCount() {
+        return offsets[size];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Libera a sobra da tabela de posições e do último bloco de bytes, depois que todas as linhas foram incluídas.
+     */
+    public void trimToSize() {
+        long end = offsets[size];
+        int used = (int) ((end + mask) >>> shift);
+        offsets = Arrays.copyOf(offsets, size + 1);
+        chunks = Arrays.copyOf(chunks, Math.max(used, 1));
+        if (used > 0) {
+            chunks[used - 1] = Arrays.copyOf(chunks[used - 1], (int) (end - ((long) (used - 1) << shift)));
+        }
+    }
+
+    /**
+     * Inclui no final da lista uma linha já codificada com o charset da lista.
+     */
+    void add(byte[] bytes, int offset, int length) {
+        if (size + 1 == offsets.length) {
+            if (size == Integer.MAX_VALUE - 8) {
+                throw new IllegalStateException("Quantidade máxima de linhas atingida");
+            }
+            offsets = Arrays.copyOf(offsets, (int) Math.min(offsets.length + Math.max(offsets.length >> 1, 1024L), Integer.MAX_VALUE - 7));
+        }
+        long end = offsets[size];
+        while (length > 0) {
+            int index = (int) (end >>> shift);
+            if (index == chunks.length) {
+                chunks = Arrays.copyOf(chunks, index * 2);
+            }
+            if (chunks[index] == null) {
+                chunks[index] = new byte[mask + 1];
+            } else if (chunks[index].length <= mask) {
+                chunks[index] = Arrays.copyOf(chunks[index], mask + 1); // último bloco reduzido por trimToSize
+            }
+            int position = (int) (end & mask);
+            int count = Math.min(length, chunks[index].length - position);
+            System.arraycopy(bytes, offset, chunks[index], position, count);
+            offset += count;
+            length -= count;
+            end += count;
+        }
+        offsets[++size] = end;
+        modCount++;
+    }
+
+    // copia os bytes a partir da posição informada, atravessando os blocos
+    private void copy(long start, byte[] bytes, int length) {
+        int offset = 0;
+        while (offset < length) {
+            byte[] chunk = chunks[(int) (start >>> shift)];
+            int position = (int) (start & mask);
+            int count = Math.min(length - offset, chunk.length - position);
+            System.arraycopy(chunk, position, bytes, offset, count);
+            offset += count;
+            start += count;
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package br.com.staroski.io;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+
+/**
+ * A {@link FileSplitterModel} that ends the parts at boundaries chosen by the content itself, instead of by line counts.<br>
+ * A Gear rolling hash runs over the characters of each line and its line separator, and a part ends after the line in which the hash matched the
+ * boundary mask, so every part ends on a line end.<br>
+ * The hash only depends on the last 64 characters, so inserting or removing lines only changes the parts around the edit: the cut points before it
+ * stay the same and the ones after it realign as soon as a boundary is found again. The unchanged regions produce byte identical parts, which can be
+ * deduplicated and skipped by incremental backups.<br>
+ * The sizes are measured in characters, which are the same as bytes for ASCII text:
+ * <ul>
+ * <li>no part ends before reaching the minimum size, except the last one;</li>
+ * <li>the boundary mask is chosen so that the parts have about the average size;</li>
+ * <li>a part always ends after the line that reaches the maximum size, even without a boundary.</li>
+ * </ul>
+ * The number of parts depends only on the content, so the one given to {@link FileSplitter#split(int)} is ignored.
+ *
+ * @author Ricardo Artur Staroski
+ */
+public class ContentDefinedSplitterModel extends AbstractFileSplitterModel {
+
+    /**
+     * Default minimum size of a part, 256 KB.
+     */
+    public static final int DEFAULT_MIN_SIZE = 256 * 1024;
+
+    /**
+     * Default average size of a part, 1 MB.
+     */
+    public static final int DEFAULT_AVERAGE_SIZE = 1024 * 1024;
+
+    /**
+     * Default maximum size of a part, 4 MB.
+     */
+    public static final int DEFAULT_MAX_SIZE = 4 * 1024 * 1024;
+
+    // random values for each byte, from a fixed seed, so the same content always produces the same boundaries
+    private static final long[] GEAR = new long[256];
+
+    static {
+        long seed = 0x5DEECE66DL;
+        for (int i = 0; i < GEAR.length; i++) {
+            // SplitMix64
+            long z = (seed += 0x9E3779B97F4A7C15L);
+            z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+            z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+            GEAR[i] = z ^ (z >>> 31);
+        }
+    }
+
+    private final int minSize;
+    private final int averageSize;
+    private final int maxSize;
+
+    // the boundary is found when the highest bits of the hash are all zeros
+    private final int maskShift;
+
+    private final String separator = System.lineSeparator();
+
+    private BufferedReader reader;
+
+    // state of the current part
+    private long hash;
+    private long size;
+    private boolean boundary;
+
+    /**
+     * Creates a model for the given file, with the default charset and part sizes.
+     *
+     * @param file
+     *            The input file.
+     */
+    public ContentDefinedSplitterModel(File file) {
+        this(file, Charset.defaultCharset());
+    }
+
+    /**
+     * Creates a model for the given file and charset, with the default part sizes.
+     *
+     * @param file
+     *            The input file.
+     *
+     * @param charset
+     *            The charset of the input file and of the part files.
+     */
+    public ContentDefinedSplitterModel(File file, Charset charset) {
+        this(file, charset, DEFAULT_MIN_SIZE, DEFAULT_AVERAGE_SIZE, DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * Creates a model for the given file and charset, with the given part sizes.
+     *
+     * @param file
+     *            The input file.
+     *
+     * @param charset
+     *            The charset of the input file and of the part files.
+     *
+     * @param minSize
+     *            The minimum size of a part.
+     *
+     * @param averageSize
+     *            The expected average size of a part, greater than the minimum size.
+     *
+     * @param maxSize
+     *            The maximum size of a part, greater than the average size.
+     *
+     * @throws IllegalArgumentException
+     *             if the sizes are not increasing.
+     */
+    public ContentDefinedSplitterModel(File file, Charset charset, int minSize, int averageSize, int maxSize) {
+        super(file, charset);
+        if (minSize < 0 || averageSize <= minSize || maxSize <= averageSize) {
+            throw new IllegalArgumentException("The sizes must satisfy 0 <= minSize < averageSize < maxSize");
+        }
+        this.minSize = minSize;
+        this.averageSize = averageSize;
+        this.maxSize = maxSize;
+        // after the minimum size, a boundary is expected every 2^bits characters
+        int bits = 63 - Long.numberOfLeadingZeros(averageSize - minSize);
+        this.maskShift = 64 - Math.max(bits, 1);
+    }
+
+    /**
+     * This implementation rolls the hash over the line and returns <code>true</code> if a boundary was found after the minimum size or if the maximum
+     * size was reached.
+     *
+     * @see FileSplitterModel#canSplit(int, String)
+     */
+    @Override
+    public boolean canSplit(int line, String content) throws Exception {
+        roll(content);
+        roll(separator);
+        if (boundary || size >= maxSize) {
+            hash = 0;
+            size = 0;
+            boundary = false;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * This implementation also resets the hash, so splitting the same file again produces the same parts.
+     *
+     * @see AbstractFileSplitterModel#initialize(int, int)
+     */
+    @Override
+    public void initialize(int lines, int parts) {
+        super.initialize(lines, parts);
+        hash = 0;
+        size = 0;
+        boundary = false;
+    }
+
+    @Override
+    public String readLine(BufferedReader reader) throws IOException {
+        return reader.readLine();
+    }
+
+    @Override
+    public BufferedReader startReading() throws IOException {
+        stopReading(reader);
+        reader = new BufferedReader(new InputStreamReader(new FileInputStream(getFile()), getCharset()), IO.BLOCK_SIZE);
+        return reader;
+    }
+
+    @Override
+    public void stopReading(BufferedReader reader) throws IOException {
+        if (reader != null) {
+            reader.close();
+        }
+    }
+
+    /**
+     * This implementation returns the average size, as the number of parts does not depend on the one given to {@link FileSplitter#split(int)}.
+     *
+     * @see AbstractFileSplitterModel#getExpectedPartSize()
+     */
+    @Override
+    protected long getExpectedPartSize() {
+        return averageSize;
+    }
+
+    /**
+     * Rolls the hash over the given characters, checking for a boundary once the minimum size is reached.
+     *
+     * @param text
+     *            The characters to be hashed.
+     */
+    private void roll(String text) {
+        long hash = this.hash;
+        long size = this.size;
+        boolean boundary = this.boundary;
+        for (int i = 0, n = text.length(); i < n; i++) {
+            char c = text.charAt(i);
+            hash = (hash << 1) + GEAR[(c ^ (c >>> 8)) & 0xFF];
+            size++;
+            if (!boundary && size >= minSize && (hash >>> maskShift) == 0) {
+                boundary = true;
+            }
+        }
+        this.hash = hash;
+        this.size = size;
+        this.boundary = boundary;
+    }
+}
@@ -0,0 +1,366 @@
+package br.com.staroski.io;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileStore;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cópia de arquivos que evita copiar conteúdo que já existe em disco.<br>
+ * Antes de copiar, o conteúdo da origem é identificado pelo seu hash SHA-256 e:
+ * <ul>
+ * <li>se o destino já tem o mesmo conteúdo, a cópia é pulada;</li>
+ * <li>se algum arquivo com o mesmo conteúdo escrito antes por este {@link DedupCopier} está no mesmo disco do destino, o destino passa a ser um
+ * <i>hard link</i> para ele, sem copiar nenhum byte;</li>
+ * <li>caso contrário o arquivo é copiado.</li>
+ * </ul>
+ * Os hashes ficam num índice persistente de caminho, tamanho e data de modificação para hash, então um arquivo só é lido de novo quando o seu tamanho
+ * ou a sua data de modificação mudam. O índice guarda no máximo a quantidade de arquivos informada, descartando os usados há mais tempo, e é gravado
+ * de forma atômica em {@link #save()} e em {@link #close()}.<br>
+ * Como os arquivos ligados por <i>hard link</i> compartilham o conteúdo, eles não devem ser alterados no lugar, e sim substituídos, como fazem os caches
+ * de build. Por isso, por padrão, os destinos só são ligados a outros destinos, e nunca às origens, que não pertencem ao {@link DedupCopier}, a não
+ * ser que isso seja permitido por {@link #setLinkSources(boolean)}. A cópia por <i>reflink</i> (<i>copy-on-write</i>) não está disponível no Java, então não é usada.
+ */
+public final class DedupCopier implements Closeable {
+
+    /**
+     * Quantidade máxima padrão de arquivos no índice.
+     */
+    public static final int DEFAULT_MAX_ENTRIES = 100000;
+
+    private static final int MAGIC = 0x44445550; // "DDUP"
+    private static final int VERSION = 2;
+
+    /**
+     * O que foi feito por {@link DedupCopier#copy(File, File)}.
+     */
+    public enum Result {
+        /**
+         * O conteúdo foi copiado.
+         */
+        COPIED,
+        /**
+         * O destino passou a ser um <i>hard link</i> para um arquivo com o mesmo conteúdo.
+         */
+        LINKED,
+        /**
+         * O destino já tinha o mesmo conteúdo.
+         */
+        SKIPPED
+    }
+
+    // o hash de um arquivo, válido enquanto o seu tamanho e data de modificação forem os mesmos, e se o arquivo foi escrito por este DedupCopier
+    private static final class Digest {
+
+        final long size;
+        final long lastModified;
+        final String hash;
+        final boolean written;
+
+        Digest(long size, long lastModified, String hash, boolean written) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.hash = hash;
+            this.written = written;
+        }
+
+        boolean matches(File file) {
+            return file.length() == size && file.lastModified() == lastModified;
+        }
+    }
+
+    private final File indexFile;
+    private final int maxEntries;
+
+    // índice por caminho, na ordem de uso, e os caminhos conhecidos de cada hash
+    private final LinkedHashMap<String, Digest> entries;
+    private final Map<String, List<String>> paths = new HashMap<String, List<String>>();
+    private boolean changed;
+    private boolean linkSources;
+
+    /**
+     * Cria um {@link DedupCopier} com o índice gravado no arquivo informado e no máximo {@link #DEFAULT_MAX_ENTRIES} arquivos.
+     *
+     * @see #DedupCopier(File, int)
+     */
+    public DedupCopier(File indexFile) throws IOException {
+        this(indexFile, DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * Cria um {@link DedupCopier} com o índice gravado no arquivo informado.<br>
+     * Se o arquivo existir, o índice é carregado dele. Um índice ilegível é descartado.
+     *
+     * @param indexFile
+     *            O arquivo do índice.
+     * @param maxEntries
+     *            A quantidade máxima de arquivos no índice.
+     */
+    public DedupCopier(File indexFile, int maxEntries) throws IOException {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("A quantidade máxima de arquivos precisa ser positiva: " + maxEntries);
+        }
+        this.indexFile = indexFile;
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<String, Digest>(16, 0.75f, true) {
+
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Digest> eldest) {
+                if (size() <= DedupCopier.this.maxEntries) {
+                    return false;
+                }
+                unlink(eldest.getKey(), eldest.getValue().hash);
+                return true;
+            }
+        };
+        load();
+    }
+
+    /**
+     * Grava o índice, se ele foi alterado.
+     */
+    @Override
+    public void close() throws IOException {
+        save();
+    }
+
+    /**
+     * Copia o arquivo de origem para o arquivo de destino, pulando a cópia se o destino já tiver o mesmo conteúdo, ou criando um <i>hard link</i> para
+     * um arquivo com o mesmo conteúdo no mesmo disco do destino.
+     *
+     * @param from
+     *            O arquivo de origem.
+     * @param to
+     *            O arquivo de destino.
+     * @return O que foi feito.
+     */
+    public synchronized Result copy(File from, File to) throws IOException {
+        from = from.getAbsoluteFile();
+        to = to.getAbsoluteFile();
+        String digest = hash(from);
+        if (to.isFile() && to.length() == from.length() && digest.equals(hash(to))) {
+            return Result.SKIPPED;
+        }
+        File folder = to.getParentFile();
+        folder.mkdirs();
+        FileStore store = Files.getFileStore(folder.toPath());
+        for (File candidate : candidates(digest, from)) {
+            if (!candidate.equals(to) && store.equals(Files.getFileStore(candidate.toPath())) && link(candidate, to)) {
+                record(to, digest);
+                return Result.LINKED;
+            }
+        }
+        IO.copyAtomic(from, to); // o destino é substituído, nunca escrito no lugar, pois pode ser um hard link de outro arquivo
+        record(to, digest);
+        return Result.COPIED;
+    }
+
+    /**
+     * Retorna o hash SHA-256 do conteúdo do arquivo informado, em hexadecimal, lendo o arquivo apenas se ele não estiver no índice ou tiver mudado.
+     *
+     * @param file
+     *            O arquivo.
+     * @return O hash do arquivo.
+     */
+    public synchronized String hash(File file) throws IOException {
+        file = file.getAbsoluteFile();
+        String path = file.getPath();
+        Digest entry = entries.get(path);
+        if (entry != null && entry.matches(file)) {
+            return entry.hash;
+        }
+        long size = file.length();
+        long lastModified = file.lastModified();
+        String digest = digest(file);
+        if (entry != null) {
+            unlink(path, entry.hash);
+        }
+        put(path, new Digest(size, lastModified, digest, false)); // mudou ou é novo, então não é mais um arquivo escrito por este DedupCopier
+        return digest;
+    }
+
+    /**
+     * Grava o índice de forma atômica, se ele foi alterado.
+     */
+    public synchronized void save() throws IOException {
+        if (!changed) {
+            return;
+        }
+        try (AtomicWriteBatch batch = new AtomicWriteBatch()) {
+            try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(batch.newOutputStream(indexFile), IO.BLOCK_SIZE))) {
+                output.writeInt(MAGIC);
+                output.writeInt(VERSION);
+                output.writeInt(entries.size());
+                for (Map.Entry<String, Digest> entry : entries.entrySet()) { // do usado há mais tempo ao mais recente
+                    output.writeUTF(entry.getKey());
+                    output.writeLong(entry.getValue().size);
+                    output.writeLong(entry.getValue().lastModified);
+                    output.writeUTF(entry.getValue().hash);
+                    output.writeBoolean(entry.getValue().written);
+                }
+            }
+            batch.commit();
+        }
+        changed = false;
+    }
+
+    /**
+     * Define se os destinos também podem ser ligados por <i>hard link</i> às origens e aos demais arquivos do índice que não foram escritos por este
+     * {@link DedupCopier}, o que é desligado por padrão.<br>
+     * Só deve ser ligado quando as origens nunca são alteradas no lugar, pois uma alteração na origem também alteraria o destino.
+     *
+     * @param linkSources
+     *            <code>true</code> para permitir ligar os destinos às origens.
+     */
+    public synchronized void setLinkSources(boolean linkSources) {
+        this.linkSources = linkSources;
+    }
+
+    // lê o conteúdo do arquivo calculando o seu hash
+    private static String digest(File file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e); // todo Java precisa ter SHA-256
+        }
+        try (FileInputStream input = new FileInputStream(file)) {
+            FileChannel channel = input.getChannel();
+            ByteBuffer buffer = ByteBuffer.allocate(1024 * 1024);
+            while (channel.read(buffer) >= 0) {
+                ((Buffer) buffer).flip();
+                digest.update(buffer);
+                ((Buffer) buffer).clear();
+            }
+        }
+        StringBuilder text = new StringBuilder(64);
+        for (byte b : digest.digest()) {
+            text.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return text.toString();
+    }
+
+    // substitui o destino por um hard link para o arquivo informado, retorna false se o sistema de arquivos não permitir
+    private static boolean link(File existing, File to) {
+        Path temp = null;
+        try {
+            temp = Files.createTempFile(to.getParentFile().toPath(), "." + to.getName() + ".", ".tmp");
+            Files.delete(temp);
+            Files.createLink(temp, existing.toPath());
+            try {
+                Files.move(temp, to.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, to.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            return true;
+        } catch (IOException | UnsupportedOperationException | SecurityException e) {
+            if (temp != null) {
+                temp.toFile().delete();
+            }
+            return false;
+        }
+    }
+
+    // arquivos conhecidos com o hash informado e que não mudaram, só os escritos por este DedupCopier a não ser que as origens possam ser ligadas
+    private List<File> candidates(String digest, File from) {
+        List<File> candidates = new ArrayList<File>();
+        if (linkSources) {
+            candidates.add(from);
+        }
+        List<String> known = paths.get(digest);
+        if (known != null) {
+            for (Iterator<String> iterator = new ArrayList<String>(known).iterator(); iterator.hasNext();) {
+                String path = iterator.next();
+                File file = new File(path);
+                Digest entry = entries.get(path);
+                if (entry != null && entry.matches(file)) {
+                    if ((entry.written || linkSources) && !candidates.contains(file)) {
+                        candidates.add(file);
+                    }
+                } else if (entry != null) {
+                    entries.remove(path); // mudou ou foi apagado
+                    unlink(path, digest);
+                    changed = true;
+                }
+            }
+        }
+        return candidates;
+    }
+
+    // carrega o índice gravado, um índice ilegível é descartado
+    private void load() {
+        if (!indexFile.isFile()) {
+            return;
+        }
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile), IO.BLOCK_SIZE))) {
+            if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+                return;
+            }
+            for (int i = input.readInt(); i > 0; i--) {
+                String path = input.readUTF();
+                long size = input.readLong();
+                long lastModified = input.readLong();
+                String digest = input.readUTF();
+                put(path, new Digest(size, lastModified, digest, input.readBoolean()));
+            }
+            changed = false;
+        } catch (IOException e) {
+            entries.clear();
+            paths.clear();
+            changed = true; // será regravado
+        }
+    }
+
+    private void put(String path, Digest entry) {
+        entries.put(path, entry);
+        List<String> known = paths.get(entry.hash);
+        if (known == null) {
+            known = new ArrayList<String>(1);
+            paths.put(entry.hash, known);
+        }
+        if (!known.contains(path)) {
+            known.add(path);
+        }
+        changed = true;
+    }
+
+    // registra o hash do arquivo que acabou de ser escrito, sem lê-lo de novo
+    private void record(File file, String digest) {
+        String path = file.getPath();
+        Digest previous = entries.get(path);
+        if (previous != null) {
+            unlink(path, previous.hash);
+        }
+        put(path, new Digest(file.length(), file.lastModified(), digest, true));
+    }
+
+    // remove o caminho da lista de caminhos do hash
+    private void unlink(String path, String digest) {
+        List<String> known = paths.get(digest);
+        if (known != null && known.remove(path) && known.isEmpty()) {
+            paths.remove(digest);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package br.com.staroski.io;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+
+/**
+ * Leitor de registros delimitados, como os de um arquivo CSV, que reaproveita o mesmo {@link DelimitedRecord} a cada registro lido.<br>
+ * Substitui o uso do {@link IO#readLines(File)} seguido de {@link String#split(String)}, sem criar uma {@link String} por linha nem por campo:
+ *
+ * <pre>
+ * try (DelimitedReader reader = new DelimitedReader(file, charset, ';')) {
+ *     while (reader.next()) {
+ *         DelimitedRecord record = reader.record();
+ *         total += record.getDouble(2);
+ *     }
+ * }
+ * </pre>
+ *
+ * Quebras de linha entre aspas fazem parte do registro.<br>
+ * O registro aponta para o buffer deste leitor, sem copiá-lo, por isso o seu conteúdo só é válido até a próxima chamada ao {@link #next()}.<br>
+ * Esta classe não é sincronizada.
+ */
+public final class DelimitedReader implements Closeable {
+
+    private final Reader reader;
+    private final DelimitedRecord record;
+    private char[] buffer = new char[IO.BLOCK_SIZE];
+    private int position;
+    private int limit;
+
+    // início do registro sendo lido, preservado quando o buffer é recarregado
+    private int mark;
+
+    // o último registro terminou com '\r', então um '\n' logo em seguida faz parte da mesma quebra de linha
+    private boolean skipLineFeed;
+
+    public DelimitedReader(File file, Charset charset, char delimiter) throws IOException {
+        this(new InputStreamReader(new FileInputStream(file), charset), new DelimitedRecord(delimiter));
+    }
+
+    public DelimitedReader(Reader reader) {
+        this(reader, new DelimitedRecord());
+    }
+
+    public DelimitedReader(Reader reader, DelimitedRecord record) {
+        this.reader = reader;
+        this.record = record;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    /**
+     * Lê o próximo registro para o {@link #record()}.
+     *
+     * @return <code>false</code> se o fim do stream foi alcançado.
+     */
+    public boolean next() throws IOException {
+        if (skipLineFeed) {
+            skipLineFeed = false;
+            mark = position;
+            if ((position < limit || fill()) && buffer[position] == '\n') {
+                position++;
+            }
+        }
+        mark = position;
+        while (true) {
+            // o registro localiza os seus campos e o seu fim direto no buffer, e é localizado de novo desde o início se o buffer precisar ser recarregado
+            int end = position < limit ? record.read(buffer, mark, limit, false) : -1;
+            if (end < 0) {
+                position = limit;
+                if (fill()) {
+                    continue;
+                }
+                if (position == mark) {
+                    return false;
+                }
+                end = record.read(buffer, mark, limit, true);
+            }
+            position = end;
+            if (position < limit) {
+                skipLineFeed = buffer[position++] == '\r';
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Retorna o registro lido pela última chamada ao {@link #next()}, que é sempre a mesma instância.
+     */
+    public DelimitedRecord record() {
+        return record;
+    }
+
+    // lê mais caracteres preservando o conteúdo a partir de mark, retorna false se o fim do stream foi alcançado
+    private boolean fill() throws IOException {
+        if (mark > 0) {
+            System.arraycopy(buffer, mark, buffer, 0, limit - mark);
+            position -= mark;
+            limit -= mark;
+            mark = 0;
+        }
+        if (limit == buffer.length) {
+            char[] larger = new char[buffer.length * 2];
+            System.arraycopy(buffer, 0, larger, 0, limit);
+            buffer = larger;
+        }
+        int read;
+        do {
+            read = reader.read(buffer, limit, buffer.length - limit);
+        } while (read == 0);
+        if (read < 0) {
+            return false;
+        }
+        limit += read;
+        return true;
+    }
+}
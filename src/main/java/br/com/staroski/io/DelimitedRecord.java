@@ -0,0 +1,328 @@
+package br.com.staroski.io;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Registro delimitado, como uma linha de um arquivo CSV, cujos campos são localizados num buffer reaproveitado a cada registro.<br>
+ * Os métodos {@link #getInt(int)}, {@link #getLong(int)} e {@link #getDouble(int)} convertem os campos direto do buffer, sem criar substrings, e
+ * {@link #matches(int, CharSequence)} compara um campo sem copiá-lo.<br>
+ * Campos entre aspas podem conter o delimitador, quebras de linha e aspas duplicadas (<code>""</code>), como no RFC 4180.<br>
+ * Por ser barato, pode ser usado no {@link FileSplitterModel#canSplit(int, String)} para dividir um arquivo por coluna, por exemplo:
+ *
+ * <pre>
+ * private final DelimitedRecord record = new DelimitedRecord(';');
+ * private long lastKey;
+ *
+ * public boolean canSplit(int line, String content) {
+ *     long key = record.parse(content).getLong(0);
+ *     boolean split = line &gt; 1 &amp;&amp; key != lastKey;
+ *     lastKey = key;
+ *     return split;
+ * }
+ * </pre>
+ *
+ * Esta classe não é sincronizada e o seu conteúdo só é válido até o próximo registro ser lido, pois os campos lidos pelo {@link DelimitedReader} são
+ * localizados direto no buffer do leitor.
+ */
+public final class DelimitedRecord {
+
+    private final char delimiter;
+    private final char quote;
+
+    // buffer próprio, usado quando o texto não vem de um DelimitedReader
+    private char[] buffer = new char[256];
+
+    // conteúdo do registro, no buffer próprio ou no buffer do DelimitedReader
+    private char[] chars = buffer;
+    private int offset;
+    private int length;
+
+    // limites de cada campo, sem as aspas, e se ele contém aspas duplicadas
+    private int[] starts = new int[16];
+    private int[] ends = new int[16];
+    private boolean[] escaped = new boolean[16];
+    private int size;
+
+    public DelimitedRecord() {
+        this(',');
+    }
+
+    public DelimitedRecord(char delimiter) {
+        this(delimiter, '"');
+    }
+
+    public DelimitedRecord(char delimiter, char quote) {
+        this.delimiter = delimiter;
+        this.quote = quote;
+    }
+
+    /**
+     * Obtém o campo informado como <code>double</code>.
+     *
+     * @throws NumberFormatException
+     *             se o campo não for um número válido.
+     */
+    public double getDouble(int column) {
+        check(column);
+        if (escaped[column]) {
+            return Double.parseDouble(getString(column));
+        }
+        return Numbers.parseDouble(chars, starts[column], ends[column]);
+    }
+
+    /**
+     * Obtém o campo informado como <code>int</code>.
+     *
+     * @throws NumberFormatException
+     *             se o campo não for um número válido.
+     */
+    public int getInt(int column) {
+        check(column);
+        if (escaped[column]) {
+            return Integer.parseInt(getString(column));
+        }
+        return Numbers.parseInt(chars, starts[column], ends[column]);
+    }
+
+    /**
+     * Obtém o campo informado como <code>long</code>.
+     *
+     * @throws NumberFormatException
+     *             se o campo não for um número válido.
+     */
+    public long getLong(int column) {
+        check(column);
+        if (escaped[column]) {
+            return Long.parseLong(getString(column));
+        }
+        return Numbers.parseLong(chars, starts[column], ends[column]);
+    }
+
+    /**
+     * Obtém o campo informado como {@link String}, sem as aspas que o delimitam e com as aspas duplicadas substituídas por uma só.
+     */
+    public String getString(int column) {
+        check(column);
+        int start = starts[column];
+        int end = ends[column];
+        if (!escaped[column]) {
+            return new String(chars, start, end - start);
+        }
+        StringBuilder text = new StringBuilder(end - start);
+        for (int i = start; i < end; i++) {
+            char c = chars[i];
+            text.append(c);
+            if (c == quote) {
+                i++; // pula a aspa duplicada
+            }
+        }
+        return text.toString();
+    }
+
+    /**
+     * Verifica se o campo informado está vazio.
+     */
+    public boolean isEmpty(int column) {
+        check(column);
+        return starts[column] == ends[column];
+    }
+
+    /**
+     * Compara o campo informado com o texto, sem copiar o campo.
+     */
+    public boolean matches(int column, CharSequence text) {
+        check(column);
+        if (escaped[column]) {
+            return getString(column).contentEquals(text);
+        }
+        int start = starts[column];
+        int length = ends[column] - start;
+        if (length != text.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (chars[start + i] != text.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Localiza os campos do texto informado, que passa a ser o conteúdo deste registro.
+     *
+     * @return Este próprio registro, permitindo chamadas encadeadas.
+     */
+    public DelimitedRecord parse(CharSequence text) {
+        int length = text.length();
+        ensureCapacity(length);
+        if (text instanceof String) {
+            ((String) text).getChars(0, length, buffer, 0);
+        } else {
+            for (int i = 0; i < length; i++) {
+                buffer[i] = text.charAt(i);
+            }
+        }
+        scan(buffer, 0, length, true, false);
+        return this;
+    }
+
+    /**
+     * Retorna a quantidade de campos do registro.
+     */
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public String toString() {
+        return new String(chars, offset, length);
+    }
+
+    /**
+     * Localiza o registro que começa na posição informada do buffer de um {@link DelimitedReader}, que passa a ser o conteúdo deste registro sem ser
+     * copiado.
+     *
+     * @return A posição da quebra de linha que termina o registro, ou <code>limit</code> se o fim do stream foi alcançado, ou <code>-1</code> se o
+     *         registro continua depois de <code>limit</code>.
+     */
+    int read(char[] source, int start, int limit, boolean end) {
+        return scan(source, start, limit, end, true);
+    }
+
+    /**
+     * Localiza o registro que começa na posição informada do buffer de um {@link TokenReader} e o decodifica para o buffer próprio.<br>
+     * Os bytes são primeiro vistos como caracteres, um por byte, o que basta para achar as aspas, os delimitadores e as quebras de linha nos charsets
+     * que os codificam em ASCII. Só os registros com outros caracteres são decodificados pelo charset e localizados de novo.
+     *
+     * @return A posição da quebra de linha que termina o registro, ou <code>limit</code> se o fim do stream foi alcançado, ou <code>-1</code> se o
+     *         registro continua depois de <code>limit</code>.
+     */
+    int read(byte[] source, int start, int limit, boolean end, Charset charset) {
+        // a janela dobra até conter o registro, para não converter o buffer inteiro a cada registro
+        int window = 0;
+        int nonAscii = -1; // posição do primeiro byte não ASCII
+        int found;
+        do {
+            int previous = window;
+            window = (int) Math.min(limit - start, Math.max(64L, window * 2L));
+            ensureCapacity(window);
+            for (int i = previous; i < window; i++) {
+                byte b = source[start + i];
+                if (b < 0 && nonAscii < 0) {
+                    nonAscii = i;
+                }
+                buffer[i] = (char) (b & 0xFF);
+            }
+            found = scan(buffer, 0, window, end && start + window == limit, true);
+        } while (found < 0 && start + window < limit);
+        if (found < 0) {
+            return -1;
+        }
+        boolean decode = !ByteLineReader.isLineTransparent(charset) || (nonAscii >= 0 && nonAscii < found);
+        if (decode && !StandardCharsets.ISO_8859_1.equals(charset)) { // no ISO-8859-1 cada byte já é o próprio caractere
+            CharBuffer decoded = charset.decode(ByteBuffer.wrap(source, start, found));
+            int length = decoded.remaining();
+            ensureCapacity(length);
+            decoded.get(buffer, 0, length);
+            scan(buffer, 0, length, true, false);
+        }
+        return start + found;
+    }
+
+    private static boolean isLineBreak(char c) {
+        return c == '\n' || c == '\r';
+    }
+
+    private void add(int start, int end, boolean escapedQuotes) {
+        if (size == starts.length) {
+            int capacity = size * 2;
+            int[] largerStarts = new int[capacity];
+            int[] largerEnds = new int[capacity];
+            boolean[] largerEscaped = new boolean[capacity];
+            System.arraycopy(starts, 0, largerStarts, 0, size);
+            System.arraycopy(ends, 0, largerEnds, 0, size);
+            System.arraycopy(escaped, 0, largerEscaped, 0, size);
+            starts = largerStarts;
+            ends = largerEnds;
+            escaped = largerEscaped;
+        }
+        starts[size] = start;
+        ends[size] = end;
+        escaped[size] = escapedQuotes;
+        size++;
+    }
+
+    private void check(int column) {
+        if (column < 0 || column >= size) {
+            throw new IndexOutOfBoundsException("Coluna " + column + " inexistente, o registro tem " + size + " campos");
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (buffer.length < capacity) {
+            buffer = Arrays.copyOf(buffer, Math.max(capacity, buffer.length * 2));
+        }
+    }
+
+    // localiza os campos do registro que começa em start, num único passo que também acha o fim do registro quando lines é true
+    // retorna a posição do fim do registro ou -1 se ele continua depois de limit e end é false
+    private int scan(char[] source, int start, int limit, boolean end, boolean lines) {
+        this.chars = source;
+        this.offset = start;
+        this.size = 0;
+        int index = start;
+        while (true) {
+            if (index < limit && source[index] == quote) {
+                int first = ++index;
+                boolean escapedQuotes = false;
+                while (true) {
+                    if (index >= limit) {
+                        if (!end) {
+                            return -1;
+                        }
+                        break;
+                    }
+                    if (source[index] == quote) {
+                        if (index + 1 >= limit && !end) {
+                            return -1; // ainda não dá para saber se a aspa está duplicada
+                        }
+                        if (index + 1 < limit && source[index + 1] == quote) {
+                            escapedQuotes = true;
+                            index += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    index++;
+                }
+                add(first, index, escapedQuotes);
+                while (index < limit && source[index] != delimiter && !(lines && isLineBreak(source[index]))) {
+                    index++; // ignora o que vier entre a aspa final e o delimitador
+                }
+            } else {
+                int first = index;
+                while (index < limit && source[index] != delimiter && !(lines && isLineBreak(source[index]))) {
+                    index++;
+                }
+                add(first, index, false);
+            }
+            if (index >= limit) {
+                if (!end) {
+                    return -1;
+                }
+                length = index - start;
+                return index;
+            }
+            if (source[index] != delimiter) {
+                length = index - start;
+                return index; // quebra de linha fora de aspas
+            }
+            index++; // pula o delimitador
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package br.com.staroski.io;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.zip.Checksum;
+
+/**
+ * Cópia de um arquivo para vários destinos lendo a origem uma única vez.<br>
+ * A origem é lida por quem chama a cópia para um anel de buffers, e cada destino tem a sua própria thread que escreve os buffers na ordem, então um
+ * destino mais lento só atrasa a leitura quando todos os buffers do anel ainda estão aguardando por ele, e a cópia dura aproximadamente o tempo do
+ * destino mais lento.
+ */
+final class FanOutCopy {
+
+    private static final int BUFFERS = 8;
+    private static final int BUFFER_SIZE = 1024 * 1024;
+
+    // o anel de buffers e, para cada buffer, quantos destinos ainda não o escreveram
+    private final ByteBuffer[] ring = new ByteBuffer[BUFFERS];
+    private final int[] pending = new int[BUFFERS];
+
+    // estado da cópia, protegido por este objeto
+    private long published;
+    private boolean finished;
+    private IOException failure;
+
+    private FanOutCopy() {
+        for (int i = 0; i < BUFFERS; i++) {
+            ring[i] = ByteBuffer.allocate(BUFFER_SIZE);
+        }
+    }
+
+    /**
+     * Copia o arquivo de origem para todos os arquivos de destino.
+     *
+     * @param from
+     *            O arquivo de origem.
+     * @param to
+     *            Os arquivos de destino.
+     * @param checksum
+     *            O checksum do conteúdo, calculado uma única vez, ou <code>null</code>.
+     * @throws IOException
+     *             se a leitura ou a escrita de algum destino falhar, os destinos podem ter ficado incompletos.
+     */
+    static void copy(File from, File[] to, Checksum checksum) throws IOException {
+        if (to.length == 0) {
+            throw new IllegalArgumentException("Nenhum arquivo de destino informado");
+        }
+        new FanOutCopy().run(from, to, checksum);
+        for (File file : to) {
+            file.setLastModified(from.lastModified());
+        }
+    }
+
+    // registra a primeira falha, as seguintes ficam como suprimidas
+    private synchronized void fail(IOException e) {
+        if (failure == null) {
+            failure = e;
+        } else {
+            failure.addSuppressed(e);
+        }
+        notifyAll();
+    }
+
+    // lê a origem para o anel de buffers enquanto as threads de escrita os gravam nos destinos
+    private void run(File from, File[] to, Checksum checksum) throws IOException {
+        Thread[] writers = new Thread[to.length];
+        try (FileInputStream input = new FileInputStream(from)) {
+            FileChannel source = input.getChannel();
+            for (int i = 0; i < to.length; i++) {
+                final File file = to[i];
+                writers[i] = new Thread(new Runnable() {
+
+                    @Override
+                    public void run() {
+                        write(file);
+                    }
+                }, "FanOutCopy-" + file.getName());
+                writers[i].start();
+            }
+            for (long block = 0;; block++) {
+                int slot = (int) (block % BUFFERS);
+                synchronized (this) {
+                    while (pending[slot] > 0 && failure == null) {
+                        wait();
+                    }
+                    if (failure != null) {
+                        break;
+                    }
+                }
+                ByteBuffer buffer = ring[slot];
+                ((Buffer) buffer).clear();
+                boolean end = false;
+                while (buffer.hasRemaining() && !end) {
+                    end = source.read(buffer) < 0;
+                }
+                ((Buffer) buffer).flip();
+                if (buffer.hasRemaining()) {
+                    if (checksum != null) {
+                        checksum.update(buffer.array(), 0, buffer.limit());
+                    }
+                    synchronized (this) {
+                        pending[slot] = to.length;
+                        published++;
+                        notifyAll();
+                    }
+                }
+                if (end) {
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            fail(e);
+        } catch (InterruptedException e) {
+            fail(new InterruptedIOException("Cópia interrompida"));
+        } finally {
+            synchronized (this) {
+                finished = true;
+                notifyAll();
+            }
+            for (Thread writer : writers) {
+                if (writer != null) {
+                    try {
+                        writer.join();
+                    } catch (InterruptedException e) {
+                        fail(new InterruptedIOException("Cópia interrompida"));
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }
+        }
+        synchronized (this) {
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+
+    // laço da thread de escrita de um destino, escreve os buffers na mesma ordem em que foram lidos
+    private void write(File file) {
+        try (FileOutputStream output = new FileOutputStream(file)) {
+            FileChannel target = output.getChannel();
+            for (long block = 0;; block++) {
+                int slot = (int) (block % BUFFERS);
+                ByteBuffer buffer;
+                synchronized (this) {
+                    while (block == published && !finished && failure == null) {
+                        wait();
+                    }
+                    if (failure != null || block == published) {
+                        return; // falhou ou terminou
+                    }
+                    buffer = ring[slot].duplicate(); // posição própria, o conteúdo é compartilhado
+                }
+                while (buffer.hasRemaining()) {
+                    target.write(buffer);
+                }
+                synchronized (this) {
+                    if (--pending[slot] == 0) {
+                        notifyAll();
+                    }
+                }
+            }
+        } catch (IOException e) {
+            fail(e);
+        } catch (InterruptedException e) {
+            fail(new InterruptedIOException("Cópia interrompida"));
+        }
+    }
+}
@@ -0,0 +1,391 @@
+package br.com.staroski.io;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Acompanha um arquivo texto que está sendo escrito, como um log, e entrega ao consumidor apenas as linhas novas, em lotes, sem reler o conteúdo já
+ * entregue (como o <code>tail -F</code>).<br>
+ * O arquivo é verificado sempre que o {@link WatchService} avisa que o seu diretório mudou e, de qualquer forma, a cada intervalo de verificação, o que
+ * também cobre os sistemas de arquivos que não enviam avisos.<br>
+ * Só são entregues as linhas completas, uma linha ainda sem quebra de linha no final fica aguardando o restante.<br>
+ * Quando o arquivo é rotacionado, isto é, renomeado e substituído por outro com o mesmo nome, o restante do arquivo antigo é entregue e o novo arquivo
+ * passa a ser lido desde o início. Quando o arquivo é truncado, ele também passa a ser lido desde o início. A rotação é identificada pelo
+ * {@link BasicFileAttributes#fileKey()}, nos sistemas que não o fornecem ela só é percebida se o novo arquivo for menor que o antigo.<br>
+ * As linhas são localizadas direto nos bytes, por isso o charset do arquivo precisa ser UTF-8, US-ASCII ou ISO-8859-1.
+ */
+public final class FileFollower implements Closeable {
+
+    private final Path path;
+    private final Charset charset;
+    private final Consumer<List<String>> consumer;
+
+    private int batchSize = 1000;
+    private volatile long pollInterval = 1000;
+    private boolean fromBeginning;
+
+    // estado da leitura, protegido por este objeto
+    private FileChannel channel;
+    private Object fileKey;
+    private long offset;
+    private boolean started;
+    private final ByteBuffer buffer = ByteBuffer.allocate(IO.BLOCK_SIZE * 8);
+    private byte[] pending = new byte[IO.BLOCK_SIZE];
+    private int pendingLength;
+    private boolean skipLineFeed;
+    private List<String> batch = new ArrayList<String>();
+
+    private Thread thread;
+    private volatile WatchService watcher;
+    private volatile boolean closed;
+    private volatile Exception failure;
+
+    /**
+     * Cria um {@link FileFollower} para o arquivo informado.<br>
+     * O acompanhamento só começa com {@link #start()}, ou com chamadas a {@link #poll()}.
+     *
+     * @param file
+     *            O arquivo a ser acompanhado, que ainda pode não existir.
+     * @param charset
+     *            O charset do arquivo.
+     * @param consumer
+     *            Quem recebe os lotes de linhas novas.
+     */
+    public FileFollower(File file, Charset charset, Consumer<List<String>> consumer) {
+        if (file == null || charset == null || consumer == null) {
+            throw new IllegalArgumentException("O arquivo, o charset e o consumidor não podem ser nulos");
+        }
+        if (!ByteLineReader.isLineTransparent(charset)) {
+            throw new IllegalArgumentException("O charset " + charset + " não codifica as quebras de linha como bytes simples");
+        }
+        this.path = file.getAbsoluteFile().toPath();
+        this.charset = charset;
+        this.consumer = consumer;
+    }
+
+    /**
+     * Encerra o acompanhamento, aguardando a thread de acompanhamento terminar.
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        Thread thread;
+        synchronized (this) {
+            thread = this.thread;
+        }
+        if (thread != null) {
+            WatchService watcher = this.watcher;
+            if (watcher != null) {
+                watcher.close(); // acorda a thread que aguarda avisos
+            } else {
+                thread.interrupt(); // acorda a thread que aguarda o intervalo
+            }
+            if (thread != Thread.currentThread()) {
+                try {
+                    thread.join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+        synchronized (this) {
+            closeChannel();
+        }
+    }
+
+    /**
+     * Retorna a exceção que encerrou a thread de acompanhamento, lançada pelo consumidor ou pela leitura do arquivo.
+     *
+     * @return A exceção, ou <code>null</code> se o acompanhamento não falhou.
+     */
+    public Exception getFailure() {
+        return failure;
+    }
+
+    /**
+     * Retorna a posição, no arquivo atual, até onde as linhas já foram lidas.
+     */
+    public synchronized long getOffset() {
+        return offset;
+    }
+
+    /**
+     * Verifica o arquivo uma vez e entrega as linhas completas que foram escritas desde a última verificação.<br>
+     * Normalmente é chamado pela thread iniciada por {@link #start()}, mas também pode ser chamado diretamente, para acompanhar o arquivo sem uma thread.
+     *
+     * @return A quantidade de linhas entregues.
+     * @throws IOException
+     *             se o arquivo não puder ser lido.
+     */
+    public synchronized int poll() throws IOException {
+        boolean first = !started;
+        started = true;
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            attributes = null; // removido ou rotacionado, o restante do arquivo antigo ainda pode ser lido
+        }
+        int count = 0;
+        if (channel != null && attributes != null && fileKey != null && !fileKey.equals(attributes.fileKey())) {
+            count += read(true); // rotacionado, entrega o final do arquivo antigo antes de passar para o novo
+            closeChannel();
+        }
+        if (channel == null) {
+            if (attributes == null) {
+                return count + flush();
+            }
+            channel = FileChannel.open(path);
+            fileKey = attributes.fileKey();
+            offset = first && !fromBeginning ? channel.size() : 0;
+        } else if (channel.size() < offset) {
+            offset = 0; // truncado, a linha incompleta que estava aguardando é descartada
+            pendingLength = 0;
+            skipLineFeed = false;
+        }
+        count += read(false);
+        return count + flush();
+    }
+
+    /**
+     * Define a quantidade máxima de linhas entregues de uma vez ao consumidor, 1000 por padrão.
+     *
+     * @return Este próprio objeto, permitindo chamadas encadeadas.
+     */
+    public synchronized FileFollower setBatchSize(int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("O tamanho do lote precisa ser positivo: " + batchSize);
+        }
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    /**
+     * Define se o arquivo que já existe ao iniciar o acompanhamento é lido desde o início, ou apenas a partir do seu final, que é o padrão.<br>
+     * Os arquivos que surgem depois de uma rotação são sempre lidos desde o início.
+     *
+     * @return Este próprio objeto, permitindo chamadas encadeadas.
+     */
+    public synchronized FileFollower setFromBeginning(boolean fromBeginning) {
+        this.fromBeginning = fromBeginning;
+        return this;
+    }
+
+    /**
+     * Define o intervalo máximo, em milissegundos, entre as verificações do arquivo, 1000 por padrão.<br>
+     * É o tempo de resposta quando o {@link WatchService} não está disponível ou não avisa as mudanças.
+     *
+     * @return Este próprio objeto, permitindo chamadas encadeadas.
+     */
+    public FileFollower setPollInterval(long pollInterval) {
+        if (pollInterval < 1) {
+            throw new IllegalArgumentException("O intervalo precisa ser positivo: " + pollInterval);
+        }
+        this.pollInterval = pollInterval;
+        return this;
+    }
+
+    /**
+     * Inicia uma thread daemon que acompanha o arquivo até que {@link #close()} seja chamado.<br>
+     * O consumidor é chamado por esta thread. Se ele, ou a leitura do arquivo, lançar uma exceção, o acompanhamento termina e a exceção fica disponível em
+     * {@link #getFailure()}.
+     *
+     * @return Este próprio objeto, permitindo chamadas encadeadas.
+     */
+    public synchronized FileFollower start() {
+        if (thread != null || closed) {
+            throw new IllegalStateException("O acompanhamento já foi iniciado");
+        }
+        thread = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                follow();
+            }
+        }, "FileFollower-" + path.getFileName());
+        thread.setDaemon(true);
+        thread.start();
+        return this;
+    }
+
+    // inclui a linha no lote, entregando o lote quando ele fica cheio
+    private int add(byte[] bytes, int start, int end) {
+        batch.add(new String(bytes, start, end - start, charset));
+        return batch.size() >= batchSize ? flush() : 0;
+    }
+
+    // guarda os bytes de uma linha incompleta
+    private void append(byte[] bytes, int start, int end) {
+        int length = end - start;
+        if (length > 0) {
+            if (pendingLength + length > pending.length) {
+                pending = Arrays.copyOf(pending, Math.max(pending.length * 2, pendingLength + length));
+            }
+            System.arraycopy(bytes, start, pending, pendingLength, length);
+            pendingLength += length;
+        }
+    }
+
+    private void closeChannel() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+            fileKey = null;
+            pendingLength = 0;
+            skipLineFeed = false;
+        }
+    }
+
+    // entrega o lote atual ao consumidor
+    private int flush() {
+        int count = batch.size();
+        if (count > 0) {
+            List<String> lines = batch;
+            batch = new ArrayList<String>();
+            consumer.accept(lines);
+        }
+        return count;
+    }
+
+    // laço da thread de acompanhamento
+    private void follow() {
+        Path folder = path.getParent();
+        try {
+            watcher = folder.getFileSystem().newWatchService();
+            folder.register(watcher, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        } catch (IOException | UnsupportedOperationException e) {
+            stopWatching(); // sem avisos, o arquivo é verificado a cada intervalo
+        }
+        try {
+            while (!closed) {
+                poll();
+                waitForChange();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // encerrado por close()
+        } catch (Exception e) {
+            if (!closed) {
+                failure = e;
+            }
+        } finally {
+            stopWatching();
+            synchronized (this) {
+                try {
+                    closeChannel();
+                } catch (IOException e) {
+                    // o arquivo só estava sendo lido
+                }
+            }
+        }
+    }
+
+    // lê os bytes novos do arquivo, separando as linhas completas; no final de um arquivo rotacionado a linha incompleta também é entregue
+    private int read(boolean last) throws IOException {
+        int count = 0;
+        while (true) {
+            ((Buffer) buffer).clear();
+            int read = channel.read(buffer, offset);
+            if (read <= 0) {
+                break;
+            }
+            offset += read;
+            byte[] bytes = buffer.array();
+            int start = 0;
+            int position = 0;
+            if (skipLineFeed) {
+                skipLineFeed = false;
+                if (bytes[0] == '\n') {
+                    start = position = 1;
+                }
+            }
+            for (; position < read; position++) {
+                byte b = bytes[position];
+                if (b == '\n' || b == '\r') {
+                    if (pendingLength > 0) {
+                        append(bytes, start, position);
+                        count += add(pending, 0, pendingLength);
+                        pendingLength = 0;
+                    } else {
+                        count += add(bytes, start, position);
+                    }
+                    if (b == '\r') {
+                        if (position + 1 < read) {
+                            if (bytes[position + 1] == '\n') {
+                                position++;
+                            }
+                        } else {
+                            skipLineFeed = true; // o '\n' pode vir na próxima leitura
+                        }
+                    }
+                    start = position + 1;
+                }
+            }
+            append(bytes, start, read); // linha incompleta, aguarda o restante
+        }
+        if (last && pendingLength > 0) {
+            count += add(pending, 0, pendingLength);
+            pendingLength = 0;
+        }
+        return count;
+    }
+
+    private void stopWatching() {
+        WatchService watcher = this.watcher;
+        this.watcher = null;
+        if (watcher != null) {
+            try {
+                watcher.close();
+            } catch (IOException e) {
+                // nada a fazer
+            }
+        }
+    }
+
+    // aguarda um aviso de mudança no arquivo ou o intervalo de verificação
+    private void waitForChange() throws InterruptedException {
+        WatchService watcher = this.watcher;
+        if (watcher == null) {
+            Thread.sleep(pollInterval);
+            return;
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(pollInterval);
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            WatchKey key = watcher.poll(remaining, TimeUnit.NANOSECONDS);
+            if (key == null) {
+                return;
+            }
+            boolean changed = false;
+            for (WatchEvent<?> event : key.pollEvents()) {
+                // os avisos de outros arquivos do diretório são ignorados
+                changed |= event.kind() == StandardWatchEventKinds.OVERFLOW || path.getFileName().equals(event.context());
+            }
+            if (!key.reset()) {
+                stopWatching(); // o diretório deixou de existir, o arquivo passa a ser verificado a cada intervalo
+                return;
+            }
+            if (changed) {
+                return;
+            }
+        }
+    }
+}
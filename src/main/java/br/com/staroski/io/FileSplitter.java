@@ -2,9 +2,12 @@ package br.com.staroski.io;
 
 import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.io.PrintWriter;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -13,7 +16,9 @@ import java.util.List;
  * It is possible to instantiate a {@link FileSplitter} with the following constructors:
  * <ul>
  * <li>{@link #FileSplitter(File)} providing a physical file;</li>
+ * <li>{@link #FileSplitter(File, Charset)} providing a physical file and its charset;</li>
  * <li>{@link #FileSplitter(String)} providing the path of a physical file;</li>
+ * <li>{@link #FileSplitter(String, Charset)} providing the path of a physical file and its charset;</li>
  * <li>{@link #FileSplitter(FileSplitterModel)} providing an {@link FileSplitterModel} for custom behaviour.</li>
  * </ul>
  * 
@@ -26,13 +31,29 @@ public final class FileSplitter {
      * 
      * @param file
      *            The input file.
+     * 
+     * @param charset
+     *            The charset of the input file and of the part files.
      */
     private static final class DefaultSplitterModel extends AbstractFileSplitterModel {
 
         private BufferedReader reader;
 
-        DefaultSplitterModel(File file) {
-            super(file);
+        DefaultSplitterModel(File file, Charset charset) {
+            super(file, charset);
+        }
+
+        // input and parts share the same charset, so lines can be copied without decoding when their terminators are plain bytes
+        boolean canSplitBytes() {
+            return ByteLineReader.isLineTransparent(getCharset());
+        }
+
+        ByteLineReader startReadingBytes() throws IOException {
+            return new ByteLineReader(new FileInputStream(getFile()), IO.BLOCK_SIZE);
+        }
+
+        OutputStream startWritingBytes(File partFile) throws IOException {
+            return openPart(partFile);
         }
 
         @Override
@@ -43,7 +64,7 @@ public final class FileSplitter {
         @Override
         public BufferedReader startReading() throws IOException {
             stopReading(reader);
-            reader = new BufferedReader(new FileReader(getFile()));
+            reader = new BufferedReader(new InputStreamReader(new FileInputStream(getFile()), getCharset()));
             return reader;
         }
 
@@ -89,7 +110,21 @@ public final class FileSplitter {
      *            File to be splitted.
      */
     public FileSplitter(final File file) {
-        this(new DefaultSplitterModel(avoidNull(file, "The 'file' parameter cannot be null")));
+        this(file, Charset.defaultCharset());
+    }
+
+    /**
+     * Creates an {@link FileSplitter} for the given {@link File} object.<br>
+     * The part files are written with the same charset of the input file.
+     * 
+     * @param file
+     *            File to be splitted.
+     * 
+     * @param charset
+     *            The charset of the file to be splitted.
+     */
+    public FileSplitter(final File file, final Charset charset) {
+        this(new DefaultSplitterModel(avoidNull(file, "The 'file' parameter cannot be null"), avoidNull(charset, "The 'charset' parameter cannot be null")));
     }
 
     /**
@@ -109,7 +144,21 @@ public final class FileSplitter {
      *            Path of file to be splitted.
      */
     public FileSplitter(String path) {
-        this(new File(avoidNull(path, "The 'path' parameter cannot be null")));
+        this(path, Charset.defaultCharset());
+    }
+
+    /**
+     * Creates an {@link FileSplitter} for the file located on the given path.<br>
+     * The part files are written with the same charset of the input file.
+     * 
+     * @param path
+     *            Path of file to be splitted.
+     * 
+     * @param charset
+     *            The charset of the file to be splitted.
+     */
+    public FileSplitter(String path, Charset charset) {
+        this(new File(avoidNull(path, "The 'path' parameter cannot be null")), charset);
     }
 
     /**
@@ -165,7 +214,9 @@ public final class FileSplitter {
     /**
      * Splits the enclosed file into the specified number of parts.<br>
      * Writes the parts into the {@link #getOutputFolder() output folder}.<br>
-     * Returns the {@link File} objects created for each part.
+     * Returns the {@link File} objects created for each part.<br>
+     * The model decides where each part ends, so the actual number of parts may differ from the requested one, as with the
+     * {@link ContentDefinedSplitterModel}.
      * 
      * @param parts
      *            The number of parts that the enclosed file will be splitted.
@@ -175,6 +226,9 @@ public final class FileSplitter {
      * @see #setOutputFolder(File)
      */
     public File[] split(int parts) throws Exception {
+        if (model instanceof DefaultSplitterModel && ((DefaultSplitterModel) model).canSplitBytes()) {
+            return splitBytes((DefaultSplitterModel) model, parts);
+        }
         final String modelClassName = model.getClass().getName();
         final String startReadingNull = "Method " + modelClassName + ".startReading() returned null";
         final String startWritingNull = "Method " + modelClassName + ".startWriting(File) returned null";
@@ -184,41 +238,64 @@ public final class FileSplitter {
         model.stopReading(reader); // close the input file reader
         model.initialize(lines, parts); // notify that the lines were read and it's ready to split in parts
         reader = avoidNull(model.startReading(), startReadingNull); // open the input file reader
-        File[] partFiles = prepareParts(parts); // prepare the File objects for each part
-        int currentPart = 0; // index of the current part file writer
+        File folder = prepareFolder(); // prepare the output folder
+        List<File> partFiles = new ArrayList<>(); // the File objects for each part, created as the parts are started
+        File partFile = nextPart(folder, partFiles); // the current part file
         int line = 0; // reset the line counter
-        PrintWriter writer = avoidNull(model.startWriting(partFiles[currentPart]), startWritingNull); // notify start writing the part file
+        PrintWriter writer = avoidNull(model.startWriting(partFile), startWritingNull); // notify start writing the part file
         String content = null; // read the content of the input file
         while ((content = model.readLine(reader)) != null) {
+            if (writer == null) { // the previous part was closed, so there is content for the next one
+                partFile = nextPart(folder, partFiles); // the next part file
+                writer = avoidNull(model.startWriting(partFile), startWritingNull); // notify start writing the part file
+            }
             line++; // increment line number
             writer.println(content); // copy the content from the input file to the current part file
             if (model.canSplit(line, content)) { // check if can close the current part and open the next
                 writer.flush(); // flush the current part file writer prior to notify stop writing
-                model.stopWriting(partFiles[currentPart], writer); // notify stop writing on the part file
+                model.stopWriting(partFile, writer); // notify stop writing on the part file
                 writer.flush(); // ensure the the current part file writer is flushed after notify stop writing
                 writer.close(); // close the current part file writer
-                currentPart++; // index of the next part file writer
+                writer = null; // the next part is only started if there are more lines
                 line = 0; // reset the line counter
-                writer = avoidNull(model.startWriting(partFiles[currentPart]), startWritingNull); // notify start writing the part file
             }
         }
         model.stopReading(reader); // close the input file reader
-        writer.flush(); // flush the current part file writer prior to notify stop writing
-        model.stopWriting(partFiles[currentPart], writer); // notify stop writing on the part file
-        writer.flush(); // ensure the the current part file writer is flushed after notify stop writing
-        writer.close(); // close the current part file writer
+        if (writer != null) {
+            writer.flush(); // flush the current part file writer prior to notify stop writing
+            model.stopWriting(partFile, writer); // notify stop writing on the part file
+            writer.flush(); // ensure the the current part file writer is flushed after notify stop writing
+            writer.close(); // close the current part file writer
+        }
         return onlyExisting(partFiles); // return the part files to the caller
     }
 
+    /**
+     * Creates the {@link File} object for the next part and adds it to the given list.
+     * 
+     * @param folder
+     *            The output folder.
+     * 
+     * @param partFiles
+     *            The {@link File} objects of the parts already started.
+     * 
+     * @return The {@link File} object of the next part.
+     */
+    private File nextPart(File folder, List<File> partFiles) {
+        File partFile = new File(folder, model.getPartName(partFiles.size()));
+        partFiles.add(partFile);
+        return partFile;
+    }
+
     /**
      * Given some {@link File} objects, returns only the ones that actually exist on file system.
      * 
      * @param files
-     *            The array of {@link File} objects.
+     *            The list of {@link File} objects.
      * 
      * @return An array containing only the {@link File} objects that actually exist on file system.
      */
-    private File[] onlyExisting(File[] files) {
+    private File[] onlyExisting(List<File> files) {
         List<File> existing = new ArrayList<>();
         for (File file : files) {
             if (file.exists()) {
@@ -229,20 +306,60 @@ public final class FileSplitter {
     }
 
     /**
-     * Creates an {@link File} array for the specified amount of parts.
+     * Ensures that the {@link #getOutputFolder() output folder} exists.
      * 
-     * @param parts
-     *            The number of parts.
-     * 
-     * @return An {@link File} array.
+     * @return The output folder.
      */
-    private File[] prepareParts(int parts) {
-        File[] partFiles = new File[parts];
+    private File prepareFolder() {
         File folder = getOutputFolder();
         folder.mkdirs(); // ensure that the output directory tree exists
-        for (int number = 0; number < parts; number++) {
-            partFiles[number] = new File(folder, model.getPartName(number));
+        return folder;
+    }
+
+    /**
+     * Splits the file of the default model copying the lines as raw bytes, without decoding and encoding them again.<br>
+     * Produces the same parts of the {@link #split(int)} method, as the lines are still terminated by the platform line separator.
+     * 
+     * @param model
+     *            The default model.
+     * 
+     * @param parts
+     *            The number of parts that the enclosed file will be splitted.
+     * 
+     * @return An array of {@link File} objects for each part.
+     */
+    private File[] splitBytes(DefaultSplitterModel model, int parts) throws Exception {
+        final byte[] separator = System.lineSeparator().getBytes(model.getCharset());
+        int lines = 0; // start counting the amount of lines of the input file
+        try (ByteLineReader reader = model.startReadingBytes()) {
+            while (reader.next()) {
+                lines++;
+            }
         }
-        return partFiles;
+        model.initialize(lines, parts); // notify that the lines were read and it's ready to split in parts
+        File folder = prepareFolder(); // prepare the output folder
+        List<File> partFiles = new ArrayList<>(); // the File objects for each part, created as the parts are started
+        int line = 0; // reset the line counter
+        OutputStream output = model.startWritingBytes(nextPart(folder, partFiles));
+        try (ByteLineReader reader = model.startReadingBytes()) {
+            while (reader.next()) {
+                if (output == null) { // the previous part was closed, so there is content for the next one
+                    output = model.startWritingBytes(nextPart(folder, partFiles));
+                }
+                line++; // increment line number
+                output.write(reader.buffer(), reader.start(), reader.length()); // copy the bytes of the line
+                output.write(separator);
+                if (model.canSplit(line, null)) { // the default model only checks the line number, so the content is not decoded
+                    output.close(); // close the current part file
+                    output = null; // the next part is only started if there are more lines
+                    line = 0; // reset the line counter
+                }
+            }
+        } finally {
+            if (output != null) {
+                output.close(); // close the current part file
+            }
+        }
+        return onlyExisting(partFiles); // return the part files to the caller
     }
 }
\ No newline at end of file
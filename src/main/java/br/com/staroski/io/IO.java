@@ -1,18 +1,32 @@
 package br.com.staroski.io;
 
 import java.io.BufferedReader;
-import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
 import java.nio.file.Files;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Random;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 import java.util.zip.*;
 
 /**
@@ -27,6 +41,16 @@ public final class IO {
      */
     public static int BLOCK_SIZE = 8192;
 
+    /**
+     * Tamanho padr&atilde;o, 1MB, utilizado para os buffers de escrita de linhas.
+     */
+    public static int LINE_BUFFER_SIZE = 1024 * 1024;
+
+    /**
+     * Tamanho, 4KB, dos blocos de zeros que n&atilde;o s&atilde;o escritos por {@link #copySparse(File, File)}.
+     */
+    public static final int SPARSE_BLOCK_SIZE = 4096;
+
     /**
      * Copia o arquivo de origem para o arquivo de destino.
      * 
@@ -65,6 +89,37 @@ public final class IO {
         to.setLastModified(from.lastModified());
     }
 
+    /**
+     * Copia o arquivo de origem para v&aacute;rios arquivos de destino, lendo a origem uma &uacute;nica vez.<br>
+     * Cada destino &eacute; escrito por uma thread pr&oacute;pria, ent&atilde;o destinos em discos diferentes s&atilde;o escritos ao mesmo tempo e a
+     * c&oacute;pia demora aproximadamente o tempo do destino mais lento.
+     * 
+     * @param from
+     *            O arquivo de origem.
+     * @param to
+     *            Os arquivos de destino.
+     * @throws IOException
+     */
+    public static void copy(File from, File... to) throws IOException {
+        FanOutCopy.copy(from, to, null);
+    }
+
+    /**
+     * Copia o arquivo de origem para v&aacute;rios arquivos de destino, lendo a origem uma &uacute;nica vez.<br>
+     * Cada destino &eacute; escrito por uma thread pr&oacute;pria e o checksum &eacute; calculado uma &uacute;nica vez, sobre o conte&uacute;do lido.
+     * 
+     * @param from
+     *            O arquivo de origem.
+     * @param to
+     *            Os arquivos de destino.
+     * @param checksum
+     *            O checksum da escrita.
+     * @throws IOException
+     */
+    public static void copy(File from, File[] to, Checksum checksum) throws IOException {
+        FanOutCopy.copy(from, to, checksum);
+    }
+
     /**
      * Copia o conte&uacute;do do stream de entrada para o stream de sa&iacute;da.
      * 
@@ -131,6 +186,74 @@ public final class IO {
         copy(new FileInputStream(from), new FileOutputStream(to), checksum);
     }
 
+    /**
+     * Copia o arquivo de origem para o arquivo de destino de forma at&ocirc;mica.<br>
+     * A c&oacute;pia &eacute; feita num arquivo tempor&aacute;rio ao lado do destino, enviada ao disco uma &uacute;nica vez no final e s&oacute;
+     * ent&atilde;o movida para o lugar do destino, ent&atilde;o uma queda durante a c&oacute;pia nunca deixa o destino copiado pela metade.<br>
+     * Para v&aacute;rios arquivos escritos juntos, o {@link AtomicWriteBatch} junta os envios ao disco.
+     * 
+     * @param from
+     *            O arquivo de origem.
+     * @param to
+     *            O arquivo de destino.
+     * @throws IOException
+     */
+    public static void copyAtomic(File from, File to) throws IOException {
+        try (AtomicWriteBatch batch = new AtomicWriteBatch()) {
+            batch.copy(from, to);
+            batch.commit();
+        }
+    }
+
+    /**
+     * Copia o arquivo de origem para o arquivo de destino, preservando os buracos de arquivos esparsos, como imagens de m&aacute;quinas virtuais e
+     * arquivos de bancos de dados.<br>
+     * Os blocos de {@link #SPARSE_BLOCK_SIZE} bytes que cont&ecirc;m apenas zeros n&atilde;o s&atilde;o escritos no destino, apenas pulados, e o
+     * tamanho final do destino &eacute; ajustado sem escrever os zeros do final, ent&atilde;o nos sistemas de arquivos que suportam arquivos esparsos
+     * eles viram buracos e n&atilde;o ocupam espa&ccedil;o.<br>
+     * A origem ainda &eacute; lida por inteiro, pois n&atilde;o h&aacute; como localizar os buracos sem l&ecirc;-los.
+     * 
+     * @param from
+     *            O arquivo de origem.
+     * @param to
+     *            O arquivo de destino.
+     * @return A quantidade de bytes efetivamente escritos no destino
+     * @throws IOException
+     */
+    public static long copySparse(File from, File to) throws IOException {
+        long written = 0;
+        try (FileInputStream input = new FileInputStream(from); RandomAccessFile output = new RandomAccessFile(to, "rw")) {
+            FileChannel source = input.getChannel();
+            FileChannel target = output.getChannel();
+            target.truncate(0); // sem o conteúdo anterior, as regiões puladas viram buracos
+            ByteBuffer buffer = ByteBuffer.allocate(SPARSE_BLOCK_SIZE * 16);
+            long position = 0;
+            for (int read; (read = readFully(source, buffer)) > 0; position += read) {
+                for (int block = 0; block < read;) {
+                    int start = block;
+                    // junta os blocos com dados consecutivos numa única escrita
+                    while (block < read && !isZeros(buffer, block, Math.min(block + SPARSE_BLOCK_SIZE, read))) {
+                        block = Math.min(block + SPARSE_BLOCK_SIZE, read);
+                    }
+                    if (block > start) {
+                        ByteBuffer data = buffer.duplicate();
+                        ((Buffer) data).limit(block).position(start);
+                        for (long at = position + start; data.hasRemaining();) {
+                            at += target.write(data, at);
+                        }
+                        written += block - start;
+                    }
+                    while (block < read && isZeros(buffer, block, Math.min(block + SPARSE_BLOCK_SIZE, read))) {
+                        block = Math.min(block + SPARSE_BLOCK_SIZE, read);
+                    }
+                }
+            }
+            output.setLength(position); // o final com zeros vira um buraco
+        }
+        to.setLastModified(from.lastModified());
+        return written;
+    }
+
     /**
      * Analisa o arquivo informado, se o mesmo n&atilde;o existir, um novo &eacute; criado
      * 
@@ -172,6 +295,132 @@ public final class IO {
         delete(new File(file));
     }
 
+    /**
+     * Acompanha o arquivo informado a partir do seu final, entregando ao consumidor, em lotes, as linhas que forem escritas nele (como o
+     * <code>tail -F</code>).<br>
+     * O acompanhamento &eacute; feito por uma thread daemon e termina quando o {@link FileFollower} retornado &eacute; fechado.
+     * 
+     * @param file
+     *            O arquivo a ser acompanhado
+     * @param charset
+     *            O charset do arquivo
+     * @param consumer
+     *            Quem recebe os lotes de linhas novas
+     * @return O {@link FileFollower} j&aacute; iniciado
+     * @see FileFollower
+     */
+    public static FileFollower follow(File file, Charset charset, Consumer<List<String>> consumer) {
+        return new FileFollower(file, charset, consumer).start();
+    }
+
+    /**
+     * Obt&eacute;m as primeiras linhas do arquivo informado, sem ler o restante do arquivo.
+     * 
+     * @param file
+     *            O arquivo do qual se deseja ler as linhas
+     * @param count
+     *            A quantidade de linhas
+     * @return Uma lista contendo no m&aacute;ximo <code>count</code> linhas
+     * @throws IOException
+     */
+    public static List<String> head(File file, int count) throws IOException {
+        return head(file, count, Charset.defaultCharset());
+    }
+
+    /**
+     * Obt&eacute;m as primeiras linhas do arquivo informado, decodificando-as com o charset informado, sem ler o restante do arquivo.
+     * 
+     * @param file
+     *            O arquivo do qual se deseja ler as linhas
+     * @param count
+     *            A quantidade de linhas
+     * @param charset
+     *            O charset do arquivo
+     * @return Uma lista contendo no m&aacute;ximo <code>count</code> linhas
+     * @throws IOException
+     */
+    public static List<String> head(File file, int count, Charset charset) throws IOException {
+        List<String> lines = new ArrayList<String>();
+        if (count <= 0) {
+            return lines;
+        }
+        try (InputStream from = new FileInputStream(file)) {
+            if (ByteLineReader.isLineTransparent(charset)) {
+                ByteLineReader input = new ByteLineReader(from, BLOCK_SIZE);
+                while (lines.size() < count && input.next()) {
+                    lines.add(input.line(charset));
+                }
+                return lines;
+            }
+            BufferedReader input = new BufferedReader(new InputStreamReader(from, charset));
+            String line = null;
+            while (lines.size() < count && (line = input.readLine()) != null) {
+                lines.add(line);
+            }
+            return lines;
+        }
+    }
+
+    /**
+     * Obt&eacute;m todas as linhas do arquivo informado numa {@link CompactLines}, que guarda os bytes das linhas em vez de objetos {@link String}.
+     * 
+     * @param file
+     *            O arquivo do qual se deseja ler as linhas
+     * @return Uma lista contendo as linhas do arquivo
+     * @throws IOException
+     */
+    public static CompactLines readCompactLines(File file) throws IOException {
+        return readCompactLines(file, Charset.defaultCharset());
+    }
+
+    /**
+     * Obt&eacute;m todas as linhas do arquivo informado numa {@link CompactLines}, que guarda os bytes das linhas em vez de objetos {@link String}.<br>
+     * A mem&oacute;ria ocupada fica pr&oacute;xima do tamanho do arquivo, enquanto a lista de {@link #readLines(File, Charset)} ocupa algumas vezes o tamanho
+     * do arquivo. As linhas s&atilde;o decodificadas a cada acesso.<br>
+     * Para UTF-8, US-ASCII e ISO-8859-1 os bytes das linhas s&atilde;o copiados sem serem decodificados.
+     * 
+     * @param file
+     *            O arquivo do qual se deseja ler as linhas
+     * @param charset
+     *            O charset do arquivo
+     * @return Uma lista contendo as linhas do arquivo
+     * @throws IOException
+     */
+    public static CompactLines readCompactLines(File file, Charset charset) throws IOException {
+        try (InputStream input = new FileInputStream(file)) {
+            return readCompactLines(input, charset);
+        }
+    }
+
+    /**
+     * Obt&eacute;m todas as linhas do stream informado numa {@link CompactLines}, que guarda os bytes das linhas em vez de objetos {@link String}.<br>
+     * O stream n&atilde;o &eacute; fechado por este m&eacute;todo.
+     * 
+     * @param from
+     *            O stream do qual se deseja ler as linhas
+     * @param charset
+     *            O charset do conte&uacute;do do stream
+     * @return Uma lista contendo as linhas do stream
+     * @throws IOException
+     */
+    public static CompactLines readCompactLines(InputStream from, Charset charset) throws IOException {
+        CompactLines lines = new CompactLines(charset);
+        if (ByteLineReader.isLineTransparent(charset)) {
+            ByteLineReader input = new ByteLineReader(from, BLOCK_SIZE);
+            while (input.next()) {
+                lines.add(input.buffer(), input.start(), input.length());
+            }
+        } else {
+            BufferedReader input = new BufferedReader(new InputStreamReader(from, charset));
+            String line = null;
+            while ((line = input.readLine()) != null) {
+                lines.add(line);
+            }
+        }
+        lines.trimToSize();
+        return lines;
+    }
+
     /**
      * Obt&eacute;m todas as linhas do arquivo informado
      * 
@@ -181,16 +430,334 @@ public final class IO {
      * @throws IOException
      */
     public static List<String> readLines(File file) throws IOException {
+        return readLines(file, Charset.defaultCharset());
+    }
+
+    /**
+     * Obt&eacute;m todas as linhas do arquivo informado, decodificando-as com o charset informado.<br>
+     * Para UTF-8, US-ASCII e ISO-8859-1 as quebras de linha s&atilde;o localizadas direto nos bytes e cada linha &eacute; decodificada uma &uacute;nica vez.
+     * 
+     * @param file
+     *            O arquivo do qual se deseja ler as linhas
+     * @param charset
+     *            O charset do arquivo
+     * @return Uma lista de contendo as linhas do arquivo
+     * @throws IOException
+     */
+    public static List<String> readLines(File file, Charset charset) throws IOException {
+        try (InputStream input = new FileInputStream(file)) {
+            return readLines(input, charset);
+        }
+    }
+
+    /**
+     * Obt&eacute;m todas as linhas do stream informado, decodificando-as com o charset informado.<br>
+     * Para UTF-8, US-ASCII e ISO-8859-1 as quebras de linha s&atilde;o localizadas direto nos bytes e cada linha &eacute; decodificada uma &uacute;nica vez.<br>
+     * O stream n&atilde;o &eacute; fechado por este m&eacute;todo.
+     * 
+     * @param from
+     *            O stream do qual se deseja ler as linhas
+     * @param charset
+     *            O charset do conte&uacute;do do stream
+     * @return Uma lista de contendo as linhas do stream
+     * @throws IOException
+     */
+    public static List<String> readLines(InputStream from, Charset charset) throws IOException {
         List<String> lines = new ArrayList<String>();
-        BufferedReader input = new BufferedReader(new FileReader(file));
+        if (ByteLineReader.isLineTransparent(charset)) {
+            ByteLineReader input = new ByteLineReader(from, BLOCK_SIZE);
+            while (input.next()) {
+                lines.add(input.line(charset));
+            }
+            return lines;
+        }
+        BufferedReader input = new BufferedReader(new InputStreamReader(from, charset));
         String line = null;
         while ((line = input.readLine()) != null) {
             lines.add(line);
         }
-        input.close();
         return lines;
     }
 
+    /**
+     * Obt&eacute;m uma amostra uniforme das linhas do arquivo informado, com uma &uacute;nica leitura sequencial do arquivo (<i>reservoir sampling</i>).<br>
+     * Cada linha tem a mesma chance de ser escolhida e apenas as linhas que entram na amostra s&atilde;o decodificadas.
+     * 
+     * @param file
+     *            O arquivo do qual se deseja ler as linhas
+     * @param count
+     *            O tamanho da amostra
+     * @param random
+     *            O gerador de n&uacute;meros aleat&oacute;rios
+     * @return Uma lista contendo no m&aacute;ximo <code>count</code> linhas distintas, na ordem em que aparecem no arquivo
+     * @throws IOException
+     */
+    public static List<String> sample(File file, int count, Random random) throws IOException {
+        return sample(file, count, random, Charset.defaultCharset());
+    }
+
+    /**
+     * Obt&eacute;m uma amostra uniforme das linhas do arquivo informado, decodificando-as com o charset informado, com uma &uacute;nica leitura sequencial
+     * do arquivo (<i>reservoir sampling</i>).<br>
+     * Cada linha tem a mesma chance de ser escolhida e, para UTF-8, US-ASCII e ISO-8859-1, apenas as linhas que entram na amostra s&atilde;o decodificadas.
+     * 
+     * @param file
+     *            O arquivo do qual se deseja ler as linhas
+     * @param count
+     *            O tamanho da amostra
+     * @param random
+     *            O gerador de n&uacute;meros aleat&oacute;rios
+     * @param charset
+     *            O charset do arquivo
+     * @return Uma lista contendo no m&aacute;ximo <code>count</code> linhas distintas, na ordem em que aparecem no arquivo
+     * @throws IOException
+     */
+    public static List<String> sample(File file, int count, Random random, Charset charset) throws IOException {
+        if (count <= 0) {
+            return new ArrayList<String>();
+        }
+        String[] lines = new String[count];
+        long[] numbers = new long[count];
+        long seen = 0;
+        try (InputStream from = new FileInputStream(file)) {
+            if (ByteLineReader.isLineTransparent(charset)) {
+                ByteLineReader input = new ByteLineReader(from, BLOCK_SIZE);
+                while (input.next()) {
+                    int slot = reservoirSlot(seen, count, random);
+                    if (slot >= 0) {
+                        lines[slot] = input.line(charset);
+                        numbers[slot] = seen;
+                    }
+                    seen++;
+                }
+            } else {
+                BufferedReader input = new BufferedReader(new InputStreamReader(from, charset));
+                String line = null;
+                while ((line = input.readLine()) != null) {
+                    int slot = reservoirSlot(seen, count, random);
+                    if (slot >= 0) {
+                        lines[slot] = line;
+                        numbers[slot] = seen;
+                    }
+                    seen++;
+                }
+            }
+        }
+        return inFileOrder(lines, numbers, (int) Math.min(seen, count));
+    }
+
+    /**
+     * Obt&eacute;m uma amostra aproximada das linhas do arquivo informado, lendo apenas as linhas que come&ccedil;am ap&oacute;s posi&ccedil;&otilde;es
+     * aleat&oacute;rias do arquivo, sem percorr&ecirc;-lo.
+     * 
+     * @param file
+     *            O arquivo do qual se deseja ler as linhas
+     * @param count
+     *            O tamanho da amostra
+     * @param random
+     *            O gerador de n&uacute;meros aleat&oacute;rios
+     * @return Uma lista contendo <code>count</code> linhas, na ordem em que aparecem no arquivo
+     * @throws IOException
+     * @see #sampleBySeek(File, int, Random, Charset)
+     */
+    public static List<String> sampleBySeek(File file, int count, Random random) throws IOException {
+        return sampleBySeek(file, count, random, Charset.defaultCharset());
+    }
+
+    /**
+     * Obt&eacute;m uma amostra aproximada das linhas do arquivo informado, decodificando-as com o charset informado, lendo apenas as linhas que
+     * come&ccedil;am ap&oacute;s posi&ccedil;&otilde;es aleat&oacute;rias do arquivo, sem percorr&ecirc;-lo.<br>
+     * O tempo depende apenas do tamanho da amostra, mas a amostra <b>n&atilde;o &eacute; uniforme</b>: a chance de uma linha ser escolhida &eacute;
+     * proporcional ao tamanho da linha que a antecede, e a primeira linha &eacute; escolhida quando a posi&ccedil;&atilde;o sorteada cai na &uacute;ltima.
+     * A mesma linha pode ser escolhida mais de uma vez. Para uma amostra uniforme use o {@link #sample(File, int, Random, Charset)}.<br>
+     * Para charsets diferentes de UTF-8, US-ASCII e ISO-8859-1 as linhas n&atilde;o podem ser localizadas pelos bytes e a amostra &eacute; obtida pelo
+     * {@link #sample(File, int, Random, Charset)}.
+     * 
+     * @param file
+     *            O arquivo do qual se deseja ler as linhas
+     * @param count
+     *            O tamanho da amostra
+     * @param random
+     *            O gerador de n&uacute;meros aleat&oacute;rios
+     * @param charset
+     *            O charset do arquivo
+     * @return Uma lista contendo <code>count</code> linhas, na ordem em que aparecem no arquivo, ou nenhuma se o arquivo estiver vazio
+     * @throws IOException
+     */
+    public static List<String> sampleBySeek(File file, int count, Random random, Charset charset) throws IOException {
+        if (!ByteLineReader.isLineTransparent(charset)) {
+            return sample(file, count, random, charset);
+        }
+        List<String> lines = new ArrayList<String>();
+        try (FileChannel channel = FileChannel.open(file.toPath())) {
+            long size = channel.size();
+            if (count <= 0 || size == 0) {
+                return lines;
+            }
+            long[] offsets = new long[count];
+            for (int i = 0; i < count; i++) {
+                offsets[i] = (long) (random.nextDouble() * size);
+            }
+            Arrays.sort(offsets); // leitura sempre para frente no arquivo
+            InputStream from = Channels.newInputStream(channel);
+            for (long offset : offsets) {
+                // a partir do byte anterior, a primeira linha lida é o restante da linha sorteada
+                channel.position(Math.max(offset - 1, 0));
+                ByteLineReader input = new ByteLineReader(from, 256);
+                boolean found = offset == 0 ? input.next() : input.next() && input.next();
+                if (!found) { // a posição caiu na última linha, usa a primeira
+                    channel.position(0);
+                    input = new ByteLineReader(from, 256);
+                    input.next();
+                }
+                lines.add(input.line(charset));
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * Obt&eacute;m as &uacute;ltimas linhas do arquivo informado, lendo o arquivo de tr&aacute;s para frente.
+     * 
+     * @param file
+     *            O arquivo do qual se deseja ler as linhas
+     * @param count
+     *            A quantidade de linhas
+     * @return Uma lista contendo no m&aacute;ximo <code>count</code> linhas, na ordem em que aparecem no arquivo
+     * @throws IOException
+     */
+    public static List<String> tail(File file, int count) throws IOException {
+        return tail(file, count, Charset.defaultCharset());
+    }
+
+    /**
+     * Obt&eacute;m as &uacute;ltimas linhas do arquivo informado, decodificando-as com o charset informado.<br>
+     * Para UTF-8, US-ASCII e ISO-8859-1 o arquivo &eacute; lido em blocos de tr&aacute;s para frente, a partir do fim, at&eacute; encontrar o
+     * in&iacute;cio das linhas desejadas. Para os demais charsets o arquivo &eacute; lido por inteiro.
+     * 
+     * @param file
+     *            O arquivo do qual se deseja ler as linhas
+     * @param count
+     *            A quantidade de linhas
+     * @param charset
+     *            O charset do arquivo
+     * @return Uma lista contendo no m&aacute;ximo <code>count</code> linhas, na ordem em que aparecem no arquivo
+     * @throws IOException
+     */
+    public static List<String> tail(File file, int count, Charset charset) throws IOException {
+        List<String> lines = new ArrayList<String>();
+        if (count <= 0) {
+            return lines;
+        }
+        if (!ByteLineReader.isLineTransparent(charset)) {
+            try (BufferedReader input = new BufferedReader(new InputStreamReader(new FileInputStream(file), charset))) {
+                ArrayDeque<String> last = new ArrayDeque<String>(count);
+                String line = null;
+                while ((line = input.readLine()) != null) {
+                    if (last.size() == count) {
+                        last.removeFirst();
+                    }
+                    last.addLast(line);
+                }
+                lines.addAll(last);
+                return lines;
+            }
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath())) {
+            long size = channel.size();
+            long start = 0; // início da primeira linha desejada
+            int found = 0; // quebras de linha encontradas, sem contar a que termina o arquivo
+            int next = -1; // o byte seguinte ao que está sendo analisado
+            ByteBuffer block = ByteBuffer.allocate(BLOCK_SIZE);
+            search: for (long end = size; end > 0;) {
+                long position = Math.max(end - BLOCK_SIZE, 0);
+                ((Buffer) block).clear();
+                ((Buffer) block).limit((int) (end - position));
+                while (block.hasRemaining() && channel.read(block, position + block.position()) >= 0) {
+                    // lê o bloco inteiro
+                }
+                byte[] bytes = block.array();
+                for (int i = (int) (end - position) - 1; i >= 0; i--) {
+                    int b = bytes[i];
+                    long index = position + i;
+                    boolean terminator = b == '\n' || (b == '\r' && next != '\n'); // o '\r' de um "\r\n" já foi contado no '\n'
+                    next = b;
+                    if (terminator && index != size - 1) { // a quebra de linha no fim do arquivo termina a última linha
+                        if (++found == count) {
+                            start = index + 1;
+                            break search;
+                        }
+                    }
+                }
+                end = position;
+            }
+            InputStream from = Channels.newInputStream(channel.position(start));
+            ByteLineReader input = new ByteLineReader(from, BLOCK_SIZE);
+            while (input.next()) {
+                lines.add(input.line(charset));
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * Extrai o arquivo ZIP informado para a pasta informada, extraindo os arquivos em paralelo.
+     * 
+     * @param zipFile
+     *            O arquivo ZIP
+     * @param folder
+     *            A pasta de destino
+     * @throws IOException
+     * @see ZipIO#unzip(File, File, int)
+     */
+    public static void unzip(File zipFile, File folder) throws IOException {
+        ZipIO.unzip(zipFile, folder);
+    }
+
+    /**
+     * Grava as linhas no arquivo informado
+     * 
+     * @param lines
+     *            As linhas a serem gravadas
+     * @param file
+     *            O arquivo no qual se deseja gravar as linhas
+     * @throws IOException
+     */
+    public static void writeLines(File file, Iterator<? extends CharSequence> lines) throws IOException {
+        writeLines(file, lines, Charset.defaultCharset());
+    }
+
+    /**
+     * Grava as linhas no arquivo informado, codificando-as com o charset informado
+     * 
+     * @param lines
+     *            As linhas a serem gravadas
+     * @param file
+     *            O arquivo no qual se deseja gravar as linhas
+     * @param charset
+     *            O charset do arquivo
+     * @throws IOException
+     */
+    public static void writeLines(File file, Iterator<? extends CharSequence> lines, Charset charset) throws IOException {
+        CharsetEncoder encoder = charset.newEncoder() //
+                .onMalformedInput(CodingErrorAction.REPLACE) //
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        CharBuffer separator = CharBuffer.wrap(System.lineSeparator());
+        // buffer no heap, alocado a cada chamada, e gravado pelo stream para que nenhuma thread fique presa a um buffer direto de LINE_BUFFER_SIZE
+        ByteBuffer buffer = ByteBuffer.allocate(LINE_BUFFER_SIZE);
+        try (OutputStream output = new FileOutputStream(file)) {
+            for (boolean first = true; lines.hasNext(); first = false) {
+                if (!first) {
+                    ((Buffer) separator).rewind();
+                    encode(output, encoder, separator, buffer);
+                }
+                encode(output, encoder, CharBuffer.wrap(lines.next()), buffer);
+            }
+            finish(output, encoder, buffer);
+            drain(output, buffer);
+        }
+    }
+
     /**
      * Grava as linhas no arquivo informado
      * 
@@ -201,17 +768,180 @@ public final class IO {
      * @throws IOException
      */
     public static void writeLines(File file, List<String> lines) throws IOException {
-        BufferedWriter output = new BufferedWriter(new FileWriter(file));
-        for (int i = 0, n = lines.size(); i < n; i++) {
-            if (i > 0) {
-                output.newLine();
+        writeLines(file, lines.iterator());
+    }
+
+    /**
+     * Grava as linhas no arquivo informado, codificando-as com o charset informado
+     * 
+     * @param lines
+     *            As linhas a serem gravadas
+     * @param file
+     *            O arquivo no qual se deseja gravar as linhas
+     * @param charset
+     *            O charset do arquivo
+     * @throws IOException
+     */
+    public static void writeLines(File file, List<String> lines, Charset charset) throws IOException {
+        writeLines(file, lines.iterator(), charset);
+    }
+
+    /**
+     * Grava as linhas no arquivo informado, consumindo o stream sem precisar montar uma lista antes
+     * 
+     * @param lines
+     *            As linhas a serem gravadas
+     * @param file
+     *            O arquivo no qual se deseja gravar as linhas
+     * @throws IOException
+     */
+    public static void writeLines(File file, Stream<? extends CharSequence> lines) throws IOException {
+        writeLines(file, lines.iterator());
+    }
+
+    /**
+     * Grava as linhas no arquivo informado, codificando-as com o charset informado e consumindo o stream sem precisar montar uma lista antes
+     * 
+     * @param lines
+     *            As linhas a serem gravadas
+     * @param file
+     *            O arquivo no qual se deseja gravar as linhas
+     * @param charset
+     *            O charset do arquivo
+     * @throws IOException
+     */
+    public static void writeLines(File file, Stream<? extends CharSequence> lines, Charset charset) throws IOException {
+        writeLines(file, lines.iterator(), charset);
+    }
+
+    /**
+     * Grava as linhas no arquivo informado de forma at&ocirc;mica.
+     * 
+     * @param file
+     *            O arquivo no qual se deseja gravar as linhas
+     * @param lines
+     *            As linhas a serem gravadas
+     * @throws IOException
+     * @see #writeLinesAtomic(File, List, Charset)
+     */
+    public static void writeLinesAtomic(File file, List<String> lines) throws IOException {
+        writeLinesAtomic(file, lines, Charset.defaultCharset());
+    }
+
+    /**
+     * Grava as linhas no arquivo informado de forma at&ocirc;mica, codificando-as com o charset informado.<br>
+     * As linhas s&atilde;o gravadas num arquivo tempor&aacute;rio ao lado do arquivo, enviado ao disco uma &uacute;nica vez no final e s&oacute;
+     * ent&atilde;o movido para o lugar do arquivo, ent&atilde;o uma queda durante a grava&ccedil;&atilde;o nunca deixa o arquivo gravado pela metade.<br>
+     * Para v&aacute;rios arquivos escritos juntos, o {@link AtomicWriteBatch} junta os envios ao disco.
+     * 
+     * @param file
+     *            O arquivo no qual se deseja gravar as linhas
+     * @param lines
+     *            As linhas a serem gravadas
+     * @param charset
+     *            O charset do arquivo
+     * @throws IOException
+     */
+    public static void writeLinesAtomic(File file, List<String> lines, Charset charset) throws IOException {
+        try (AtomicWriteBatch batch = new AtomicWriteBatch()) {
+            batch.writeLines(file, lines, charset);
+            batch.commit();
+        }
+    }
+
+    /**
+     * Comprime o arquivo ou pasta informado num arquivo ZIP, comprimindo os arquivos em paralelo.
+     * 
+     * @param source
+     *            O arquivo ou pasta a ser comprimido
+     * @param zipFile
+     *            O arquivo ZIP, criado ou substitu&iacute;do
+     * @throws IOException
+     * @see ZipIO#zip(File, File, int, int)
+     */
+    public static void zip(File source, File zipFile) throws IOException {
+        ZipIO.zip(source, zipFile);
+    }
+
+    // grava no stream o conte&uacute;do acumulado no buffer e o deixa pronto para nova escrita
+    private static void drain(OutputStream output, ByteBuffer buffer) throws IOException {
+        output.write(buffer.array(), buffer.arrayOffset(), buffer.position());
+        ((Buffer) buffer).clear();
+    }
+
+    // codifica os caracteres direto no buffer, descarregando-o no stream sempre que encher
+    // o encoder não é reiniciado entre as chamadas, senão charsets como UTF-16 gravariam o BOM antes de cada linha
+    private static void encode(OutputStream output, CharsetEncoder encoder, CharBuffer chars, ByteBuffer buffer) throws IOException {
+        CoderResult result = encoder.encode(chars, buffer, true);
+        while (result.isOverflow()) {
+            drain(output, buffer);
+            result = encoder.encode(chars, buffer, true);
+        }
+    }
+
+    // termina a codificação do arquivo, uma única vez depois da última linha
+    private static void finish(OutputStream output, CharsetEncoder encoder, ByteBuffer buffer) throws IOException {
+        CharBuffer empty = CharBuffer.allocate(0);
+        CoderResult result = encoder.encode(empty, buffer, true);
+        while (result.isOverflow()) {
+            drain(output, buffer);
+            result = encoder.encode(empty, buffer, true);
+        }
+        result = encoder.flush(buffer);
+        while (result.isOverflow()) {
+            drain(output, buffer);
+            result = encoder.flush(buffer);
+        }
+    }
+
+    // coloca as linhas da amostra na ordem em que aparecem no arquivo
+    private static List<String> inFileOrder(final String[] lines, final long[] numbers, int count) {
+        Integer[] order = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(numbers[a], numbers[b]));
+        List<String> sorted = new ArrayList<String>(count);
+        for (Integer index : order) {
+            sorted.add(lines[index]);
+        }
+        return sorted;
+    }
+
+    // verifica se o trecho do buffer contém apenas zeros, comparando 8 bytes de cada vez
+    private static boolean isZeros(ByteBuffer buffer, int start, int end) {
+        int i = start;
+        for (int last = end - 8; i <= last; i += 8) {
+            if (buffer.getLong(i) != 0) {
+                return false;
             }
-            output.write(lines.get(i));
         }
-        output.flush();
-        output.close();
+        for (; i < end; i++) {
+            if (buffer.get(i) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // lê do canal até encher o buffer ou chegar ao final, retorna a quantidade de bytes lidos
+    private static int readFully(FileChannel input, ByteBuffer buffer) throws IOException {
+        ((Buffer) buffer).clear();
+        while (buffer.hasRemaining() && input.read(buffer) >= 0) {
+            ;
+        }
+        return buffer.position();
+    }
+
+    // posição da amostra que a linha de número seen deve ocupar, ou -1 se ela não entra na amostra
+    private static int reservoirSlot(long seen, int count, Random random) {
+        if (seen < count) {
+            return (int) seen;
+        }
+        long slot = (long) (random.nextDouble() * (seen + 1));
+        return slot < count ? (int) slot : -1;
     }
 
-    // no faz sentido instanciar esta classe
+    // não faz sentido instanciar esta classe
     private IO() {}
 }
\ No newline at end of file
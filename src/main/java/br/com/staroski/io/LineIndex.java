@@ -0,0 +1,306 @@
+package br.com.staroski.io;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Índice esparso das linhas de um arquivo texto, que permite ler a linha N, ou um intervalo de linhas, sem percorrer o arquivo desde o início.<br>
+ * O índice guarda a posição de uma linha a cada <code>interval</code> linhas, então ler uma linha custa um posicionamento no arquivo e a leitura de no
+ * máximo <code>interval</code> linhas.<br>
+ * O índice é montado com uma única varredura dos bytes do arquivo e gravado ao lado dele, com a extensão {@link #EXTENSION}. Enquanto o tamanho e a data
+ * de modificação do arquivo não mudarem, as próximas aberturas reaproveitam o índice gravado.<br>
+ * As linhas são localizadas direto nos bytes, por isso o charset do arquivo precisa ser UTF-8, US-ASCII ou ISO-8859-1.<br>
+ * As leituras são posicionais, então a mesma instância pode ser usada por várias threads.
+ */
+public final class LineIndex implements Closeable {
+
+    /**
+     * Quantidade padrão de linhas entre as posições guardadas no índice.
+     */
+    public static final int DEFAULT_INTERVAL = 1024;
+
+    /**
+     * Extensão acrescentada ao nome do arquivo para gravar o seu índice.
+     */
+    public static final String EXTENSION = ".lineidx";
+
+    private static final int MAGIC = 0x4C494458; // "LIDX"
+    private static final int VERSION = 1;
+
+    // lê o canal a partir de uma posição, sem alterar a posição do canal
+    private static final class PositionalInput extends InputStream {
+
+        private final FileChannel channel;
+        private long position;
+
+        PositionalInput(FileChannel channel, long position) {
+            this.channel = channel;
+            this.position = position;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            return read(b, 0, 1) < 0 ? -1 : b[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            int read = channel.read(ByteBuffer.wrap(bytes, offset, length), position);
+            if (read > 0) {
+                position += read;
+            }
+            return read;
+        }
+    }
+
+    private final File file;
+    private final FileChannel channel;
+    private final long length;
+    private final long lastModified;
+    private final int interval;
+    private final long lines;
+    private final long[] offsets;
+
+    private LineIndex(File file, long length, long lastModified, int interval, long lines, long[] offsets) throws IOException {
+        this.file = file;
+        this.length = length;
+        this.lastModified = lastModified;
+        this.interval = interval;
+        this.lines = lines;
+        this.offsets = offsets;
+        this.channel = FileChannel.open(file.toPath());
+    }
+
+    /**
+     * Monta o índice do arquivo informado com uma varredura completa, sem gravá-lo.
+     *
+     * @param file
+     *            O arquivo a ser indexado.
+     * @param interval
+     *            A quantidade de linhas entre as posições guardadas no índice.
+     */
+    public static LineIndex build(File file, int interval) throws IOException {
+        if (interval < 1) {
+            throw new IllegalArgumentException("O intervalo precisa ser positivo: " + interval);
+        }
+        long length = file.length();
+        long lastModified = file.lastModified();
+        long[] offsets = new long[16];
+        int checkpoints = 0;
+        long lines = 0;
+        try (ByteLineReader reader = new ByteLineReader(new FileInputStream(file), IO.BLOCK_SIZE * 8)) {
+            while (reader.next()) {
+                if (lines % interval == 0) {
+                    if (checkpoints == offsets.length) {
+                        offsets = Arrays.copyOf(offsets, checkpoints * 2);
+                    }
+                    offsets[checkpoints++] = reader.lineOffset();
+                }
+                lines++;
+            }
+        }
+        return new LineIndex(file, length, lastModified, interval, lines, Arrays.copyOf(offsets, checkpoints));
+    }
+
+    /**
+     * Abre o índice do arquivo informado, com o intervalo padrão de {@link #DEFAULT_INTERVAL} linhas.
+     *
+     * @see #open(File, int)
+     */
+    public static LineIndex open(File file) throws IOException {
+        return open(file, DEFAULT_INTERVAL);
+    }
+
+    /**
+     * Abre o índice do arquivo informado.<br>
+     * O índice gravado ao lado do arquivo é reaproveitado se foi montado com o mesmo intervalo e se o tamanho e a data de modificação do arquivo não
+     * mudaram, caso contrário o índice é montado novamente e gravado. Se o índice não puder ser gravado, ele é usado apenas em memória.
+     *
+     * @param file
+     *            O arquivo a ser indexado.
+     * @param interval
+     *            A quantidade de linhas entre as posições guardadas no índice.
+     */
+    public static LineIndex open(File file, int interval) throws IOException {
+        File indexFile = indexFile(file);
+        LineIndex index = load(file, indexFile, interval);
+        if (index != null) {
+            return index;
+        }
+        index = build(file, interval);
+        try {
+            index.save(indexFile);
+        } catch (IOException e) {
+            indexFile.delete(); // diretório somente leitura, o índice é usado apenas em memória
+        }
+        return index;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Retorna o arquivo indexado.
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Retorna a quantidade de linhas do arquivo quando ele foi indexado.
+     */
+    public long getLineCount() {
+        return lines;
+    }
+
+    /**
+     * Verifica se o arquivo continua com o mesmo tamanho e data de modificação de quando foi indexado.
+     */
+    public boolean isCurrent() {
+        return file.length() == length && file.lastModified() == lastModified;
+    }
+
+    /**
+     * Lê a linha informada, decodificando-a com o charset padrão.
+     *
+     * @param number
+     *            O número da linha, a partir de zero.
+     */
+    public String readLine(long number) throws IOException {
+        return readLine(number, Charset.defaultCharset());
+    }
+
+    /**
+     * Lê a linha informada, decodificando-a com o charset informado.
+     *
+     * @param number
+     *            O número da linha, a partir de zero.
+     * @param charset
+     *            O charset do arquivo.
+     * @throws IndexOutOfBoundsException
+     *             se a linha não existir.
+     */
+    public String readLine(long number, Charset charset) throws IOException {
+        List<String> line = readLines(number, number + 1, charset);
+        return line.get(0);
+    }
+
+    /**
+     * Lê as linhas do intervalo informado, decodificando-as com o charset padrão.
+     *
+     * @param from
+     *            O número da primeira linha, a partir de zero.
+     * @param to
+     *            O número seguinte ao da última linha.
+     */
+    public List<String> readLines(long from, long to) throws IOException {
+        return readLines(from, to, Charset.defaultCharset());
+    }
+
+    /**
+     * Lê as linhas do intervalo informado, decodificando-as com o charset informado.<br>
+     * O arquivo é lido a partir da posição guardada mais próxima antes da primeira linha, sem percorrê-lo desde o início.
+     *
+     * @param from
+     *            O número da primeira linha, a partir de zero.
+     * @param to
+     *            O número seguinte ao da última linha.
+     * @param charset
+     *            O charset do arquivo.
+     * @throws IndexOutOfBoundsException
+     *             se o intervalo não estiver dentro das linhas do arquivo.
+     */
+    public List<String> readLines(long from, long to, Charset charset) throws IOException {
+        if (from < 0 || to > lines || from > to) {
+            throw new IndexOutOfBoundsException("Intervalo [" + from + ", " + to + ") fora das " + lines + " linhas do arquivo");
+        }
+        if (!ByteLineReader.isLineTransparent(charset)) {
+            throw new IllegalArgumentException("O charset " + charset + " não codifica as quebras de linha como bytes simples");
+        }
+        List<String> result = new ArrayList<String>((int) Math.min(to - from, 1024));
+        if (from == to) {
+            return result;
+        }
+        int checkpoint = (int) (from / interval);
+        ByteLineReader reader = new ByteLineReader(new PositionalInput(channel, offsets[checkpoint]), IO.BLOCK_SIZE);
+        for (long line = (long) checkpoint * interval; line < to && reader.next(); line++) {
+            if (line >= from) {
+                result.add(reader.line(charset));
+            }
+        }
+        return result;
+    }
+
+    // arquivo no qual o índice é gravado, ao lado do arquivo indexado
+    private static File indexFile(File file) {
+        return new File(file.getAbsoluteFile().getParentFile(), file.getName() + EXTENSION);
+    }
+
+    // lê o índice gravado, retorna null se ele não existir, estiver corrompido ou desatualizado
+    private static LineIndex load(File file, File indexFile, int interval) throws IOException {
+        if (!indexFile.isFile()) {
+            return null;
+        }
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile), IO.BLOCK_SIZE))) {
+            if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+                return null;
+            }
+            long length = input.readLong();
+            long lastModified = input.readLong();
+            if (input.readInt() != interval || length != file.length() || lastModified != file.lastModified()) {
+                return null;
+            }
+            long lines = input.readLong();
+            int checkpoints = input.readInt();
+            if (checkpoints < 0 || checkpoints != (lines + interval - 1) / interval) {
+                return null;
+            }
+            long[] offsets = new long[checkpoints];
+            for (int i = 0; i < checkpoints; i++) {
+                offsets[i] = input.readLong();
+            }
+            return new LineIndex(file, length, lastModified, interval, lines, offsets);
+        } catch (IOException e) {
+            return null; // índice truncado ou ilegível, será montado novamente
+        }
+    }
+
+    // grava o índice num arquivo temporário e o renomeia, para que um índice incompleto nunca seja lido
+    private void save(File indexFile) throws IOException {
+        File temp = new File(indexFile.getPath() + ".tmp");
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp), IO.BLOCK_SIZE))) {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeLong(length);
+            output.writeLong(lastModified);
+            output.writeInt(interval);
+            output.writeLong(lines);
+            output.writeInt(offsets.length);
+            for (long offset : offsets) {
+                output.writeLong(offset);
+            }
+        }
+        IO.delete(indexFile);
+        if (!temp.renameTo(indexFile)) {
+            IO.delete(temp);
+            throw new IOException("Não foi possível gravar o índice " + indexFile);
+        }
+    }
+}
@@ -0,0 +1,526 @@
+package br.com.staroski.io;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Conversões rápidas entre números e texto ASCII, independentes de {@link java.util.Locale}, feitas direto sobre arrays de bytes ou caracteres.<br>
+ * Os métodos <code>format</code> escrevem o número a partir da posição informada e retornam a posição seguinte ao último byte escrito, o array
+ * precisa ter espaço para {@link #MAX_LONG_LENGTH}, {@link #MAX_DOUBLE_LENGTH} ou {@link #MAX_FIXED_LENGTH} bytes, conforme o caso.<br>
+ * Os métodos <code>parse</code> aceitam o mesmo texto que {@link Long#parseLong(String)} e {@link Double#parseDouble(String)}, convertendo sem criar
+ * objetos nos casos comuns e recorrendo a eles nos demais.
+ */
+public final class Numbers {
+
+    /**
+     * Tamanho máximo de um <code>long</code> formatado.
+     */
+    public static final int MAX_LONG_LENGTH = 20;
+
+    /**
+     * Tamanho máximo de um <code>double</code> formatado por {@link #format(double, byte[], int)}.
+     */
+    public static final int MAX_DOUBLE_LENGTH = 25;
+
+    /**
+     * Tamanho máximo de um <code>double</code> formatado por {@link #format(double, int, byte[], int)}.
+     */
+    public static final int MAX_FIXED_LENGTH = 330;
+
+    /**
+     * Quantidade máxima de casas decimais aceita por {@link #format(double, int, byte[], int)}.
+     */
+    public static final int MAX_DECIMALS = 18;
+
+    // potências de 10 representadas exatamente por um double
+    private static final double[] POWERS_OF_TEN = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18,
+            1e19, 1e20, 1e21, 1e22 };
+
+    private static final long[] LONG_POWERS_OF_TEN = { 1L, 10L, 100L, 1000L, 10000L, 100000L, 1000000L, 10000000L, 100000000L, 1000000000L, 10000000000L,
+            100000000000L, 1000000000000L, 10000000000000L, 100000000000000L, 1000000000000000L, 10000000000000000L, 100000000000000000L,
+            1000000000000000000L };
+
+    // maior inteiro a partir do qual um double deixa de representar todos os inteiros
+    private static final long EXACT_LIMIT = 1L << 53;
+
+    // retornado por shortestScale quando a escala foge das potências de 10 exatas
+    private static final int NO_SCALE = Integer.MIN_VALUE;
+
+    private static final byte[] NAN = { 'N', 'a', 'N' };
+    private static final byte[] INFINITY = { 'I', 'n', 'f', 'i', 'n', 'i', 't', 'y' };
+    private static final byte[] MIN_LONG = { '-', '9', '2', '2', '3', '3', '7', '2', '0', '3', '6', '8', '5', '4', '7', '7', '5', '8', '0', '8' };
+
+    /**
+     * Formata o <code>double</code> com o menor número de dígitos que, lido de volta, resulta exatamente no mesmo valor.<br>
+     * O texto segue o formato do {@link Double#toString(double)}, com notação científica abaixo de 10<sup>-3</sup> e a partir de 10<sup>7</sup>.<br>
+     * Valores cuja escala foge das potências de 10 exatas, próximos dos limites do <code>double</code>, são formatados pelo próprio
+     * {@link Double#toString(double)}, que garante a leitura de volta mas nem sempre usa o menor número de dígitos.
+     *
+     * @return A posição seguinte ao último byte escrito.
+     */
+    public static int format(double value, byte[] buffer, int offset) {
+        if (value != value) {
+            return copy(NAN, buffer, offset);
+        }
+        if (value < 0 || (value == 0 && 1 / value < 0)) {
+            buffer[offset++] = '-';
+            value = -value;
+        }
+        if (value == Double.POSITIVE_INFINITY) {
+            return copy(INFINITY, buffer, offset);
+        }
+        if (value == 0) {
+            buffer[offset++] = '0';
+            buffer[offset++] = '.';
+            buffer[offset++] = '0';
+            return offset;
+        }
+        int scale = shortestScale(value);
+        if (scale == NO_SCALE) {
+            return copy(Double.toString(value), buffer, offset);
+        }
+        long digits = scaled(value, scale);
+        while (digits % 10 == 0) {
+            digits /= 10;
+            scale--;
+        }
+        return layout(digits, scale, buffer, offset);
+    }
+
+    /**
+     * Formata o <code>double</code> com um número fixo de casas decimais, como o <code>"%.nf"</code> do {@link java.util.Formatter}, porém sem separador
+     * de milhares e sempre com <code>'.'</code> como separador decimal.<br>
+     * Assim como no {@link java.util.Formatter}, o arredondamento é {@link RoundingMode#HALF_UP} sobre a representação decimal mais curta do
+     * <code>double</code>, e não sobre o seu valor binário exato, então <code>1.005</code> com duas casas resulta em <code>"1.01"</code>.
+     *
+     * @param decimals
+     *            A quantidade de casas decimais, entre <code>0</code> e {@link #MAX_DECIMALS}.
+     * @return A posição seguinte ao último byte escrito.
+     */
+    public static int format(double value, int decimals, byte[] buffer, int offset) {
+        if (decimals < 0 || decimals > MAX_DECIMALS) {
+            throw new IllegalArgumentException("Quantidade de casas decimais inválida: " + decimals);
+        }
+        if (value != value) {
+            return copy(NAN, buffer, offset);
+        }
+        if (value < 0 || (value == 0 && 1 / value < 0)) {
+            buffer[offset++] = '-';
+            value = -value;
+        }
+        if (value == Double.POSITIVE_INFINITY) {
+            return copy(INFINITY, buffer, offset);
+        }
+        // value = digits * 10^-scale, com os dígitos da representação mais curta, que são arredondados para as casas pedidas
+        int scale = value == 0 ? 0 : value >= EXACT_LIMIT ? NO_SCALE : shortestScale(value);
+        long digits = scale == NO_SCALE ? 0 : scaled(value, scale);
+        if (scale == NO_SCALE || (scale < decimals && (decimals - scale > 18 || digits > Long.MAX_VALUE / LONG_POWERS_OF_TEN[decimals - scale]))) {
+            // valores inteiros a partir de 2^53, que o Formatter escreve com os dígitos do Double.toString, escala fora das potências de 10 exatas ou
+            // grande demais para um long
+            String text = BigDecimal.valueOf(value).setScale(decimals, RoundingMode.HALF_UP).toPlainString();
+            return copy(text, buffer, offset);
+        }
+        long units;
+        if (scale <= decimals) {
+            units = digits * LONG_POWERS_OF_TEN[decimals - scale];
+        } else if (scale - decimals > 18) {
+            units = 0; // digits é menor que 2^53, bem menos que meia unidade
+        } else {
+            long power = LONG_POWERS_OF_TEN[scale - decimals];
+            units = digits / power + (digits % power >= power / 2 ? 1 : 0);
+        }
+        offset = format(units / LONG_POWERS_OF_TEN[decimals], buffer, offset);
+        if (decimals > 0) {
+            buffer[offset++] = '.';
+            offset = digits(units % LONG_POWERS_OF_TEN[decimals], decimals, buffer, offset);
+        }
+        return offset;
+    }
+
+    /**
+     * Formata o <code>long</code> em decimal.
+     *
+     * @return A posição seguinte ao último byte escrito.
+     */
+    public static int format(long value, byte[] buffer, int offset) {
+        if (value == Long.MIN_VALUE) {
+            return copy(MIN_LONG, buffer, offset);
+        }
+        if (value < 0) {
+            buffer[offset++] = '-';
+            value = -value;
+        }
+        return digits(value, length(value), buffer, offset);
+    }
+
+    /**
+     * Converte o texto entre <code>start</code> (inclusivo) e <code>end</code> (exclusivo) para <code>double</code>.<br>
+     * Números com até 18 dígitos significativos e expoente decimal de até 22 são convertidos com uma única operação exata, os demais pelo
+     * {@link Double#parseDouble(String)}.
+     *
+     * @throws NumberFormatException
+     *             se o texto não for um número válido.
+     */
+    public static double parseDouble(byte[] bytes, int start, int end) {
+        int index = start;
+        boolean negative = index < end && bytes[index] == '-';
+        if (index < end && (negative || bytes[index] == '+')) {
+            index++;
+        }
+        long mantissa = 0;
+        int digits = 0; // dígitos significativos acumulados na mantissa
+        int exponent = 0;
+        boolean valid = false;
+        boolean fraction = false;
+        for (; index < end; index++) {
+            int b = bytes[index];
+            if (b >= '0' && b <= '9') {
+                valid = true;
+                if (digits < 18) {
+                    if (mantissa != 0 || b != '0') {
+                        digits++;
+                    }
+                    mantissa = mantissa * 10 + (b - '0');
+                    if (fraction) {
+                        exponent--;
+                    }
+                } else if (b != '0') {
+                    return Double.parseDouble(text(bytes, start, end)); // dígitos demais para a conversão exata
+                } else if (!fraction) {
+                    exponent++;
+                }
+            } else if (b == '.' && !fraction) {
+                fraction = true;
+            } else {
+                break;
+            }
+        }
+        if (index < end && valid && (bytes[index] == 'e' || bytes[index] == 'E')) {
+            index++;
+            boolean negativeExponent = index < end && bytes[index] == '-';
+            if (index < end && (bytes[index] == '-' || bytes[index] == '+')) {
+                index++;
+            }
+            int first = index;
+            int value = 0;
+            for (; index < end; index++) {
+                int b = bytes[index];
+                if (b < '0' || b > '9') {
+                    break; // sufixos como 'd' e 'f' ficam para o Double.parseDouble
+                }
+                if (value < 10000) {
+                    value = value * 10 + (b - '0');
+                }
+            }
+            exponent += negativeExponent ? -value : value;
+            valid = index > first; // sem dígitos no expoente o Double.parseDouble reporta o erro
+        }
+        if (index < end || !valid || !exact(mantissa, exponent)) {
+            return Double.parseDouble(text(bytes, start, end)); // espaços, NaN, Infinity, hexadecimais, expoentes grandes e afins
+        }
+        double value = toDouble(mantissa, exponent);
+        return negative ? -value : value;
+    }
+
+    /**
+     * Converte o texto entre <code>start</code> (inclusivo) e <code>end</code> (exclusivo) para <code>double</code>.
+     *
+     * @throws NumberFormatException
+     *             se o texto não for um número válido.
+     * @see #parseDouble(byte[], int, int)
+     */
+    public static double parseDouble(char[] chars, int start, int end) {
+        int index = start;
+        boolean negative = index < end && chars[index] == '-';
+        if (index < end && (negative || chars[index] == '+')) {
+            index++;
+        }
+        long mantissa = 0;
+        int digits = 0; // dígitos significativos acumulados na mantissa
+        int exponent = 0;
+        boolean valid = false;
+        boolean fraction = false;
+        for (; index < end; index++) {
+            char c = chars[index];
+            if (c >= '0' && c <= '9') {
+                valid = true;
+                if (digits < 18) {
+                    if (mantissa != 0 || c != '0') {
+                        digits++;
+                    }
+                    mantissa = mantissa * 10 + (c - '0');
+                    if (fraction) {
+                        exponent--;
+                    }
+                } else if (c != '0') {
+                    return Double.parseDouble(new String(chars, start, end - start)); // dígitos demais para a conversão exata
+                } else if (!fraction) {
+                    exponent++;
+                }
+            } else if (c == '.' && !fraction) {
+                fraction = true;
+            } else {
+                break;
+            }
+        }
+        if (index < end && valid && (chars[index] == 'e' || chars[index] == 'E')) {
+            index++;
+            boolean negativeExponent = index < end && chars[index] == '-';
+            if (index < end && (chars[index] == '-' || chars[index] == '+')) {
+                index++;
+            }
+            int first = index;
+            int value = 0;
+            for (; index < end; index++) {
+                char c = chars[index];
+                if (c < '0' || c > '9') {
+                    break; // sufixos como 'd' e 'f' ficam para o Double.parseDouble
+                }
+                if (value < 10000) {
+                    value = value * 10 + (c - '0');
+                }
+            }
+            exponent += negativeExponent ? -value : value;
+            valid = index > first; // sem dígitos no expoente o Double.parseDouble reporta o erro
+        }
+        if (index < end || !valid || !exact(mantissa, exponent)) {
+            return Double.parseDouble(new String(chars, start, end - start)); // espaços, NaN, Infinity, hexadecimais, expoentes grandes e afins
+        }
+        double value = toDouble(mantissa, exponent);
+        return negative ? -value : value;
+    }
+
+    /**
+     * Converte o texto entre <code>start</code> (inclusivo) e <code>end</code> (exclusivo) para <code>int</code>.
+     *
+     * @throws NumberFormatException
+     *             se o texto não for um número válido.
+     */
+    public static int parseInt(byte[] bytes, int start, int end) {
+        return (int) parseLong(bytes, start, end, Integer.MIN_VALUE, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Converte o texto entre <code>start</code> (inclusivo) e <code>end</code> (exclusivo) para <code>int</code>.
+     *
+     * @throws NumberFormatException
+     *             se o texto não for um número válido.
+     */
+    public static int parseInt(char[] chars, int start, int end) {
+        return (int) parseLong(chars, start, end, Integer.MIN_VALUE, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Converte o texto entre <code>start</code> (inclusivo) e <code>end</code> (exclusivo) para <code>long</code>.
+     *
+     * @throws NumberFormatException
+     *             se o texto não for um número válido.
+     */
+    public static long parseLong(byte[] bytes, int start, int end) {
+        return parseLong(bytes, start, end, Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    /**
+     * Converte o texto entre <code>start</code> (inclusivo) e <code>end</code> (exclusivo) para <code>long</code>.
+     *
+     * @throws NumberFormatException
+     *             se o texto não for um número válido.
+     */
+    public static long parseLong(char[] chars, int start, int end) {
+        return parseLong(chars, start, end, Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    /**
+     * Formata o <code>double</code> com o menor número de dígitos que, lido de volta, resulta exatamente no mesmo valor.
+     *
+     * @see #format(double, byte[], int)
+     */
+    public static String toString(double value) {
+        byte[] buffer = new byte[MAX_DOUBLE_LENGTH];
+        return new String(buffer, 0, format(value, buffer, 0), StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Formata o <code>double</code> com um número fixo de casas decimais.
+     *
+     * @see #format(double, int, byte[], int)
+     */
+    public static String toString(double value, int decimals) {
+        byte[] buffer = new byte[MAX_FIXED_LENGTH];
+        return new String(buffer, 0, format(value, decimals, buffer, 0), StandardCharsets.US_ASCII);
+    }
+
+    private static int copy(byte[] source, byte[] buffer, int offset) {
+        System.arraycopy(source, 0, buffer, offset, source.length);
+        return offset + source.length;
+    }
+
+    private static int copy(String text, byte[] buffer, int offset) {
+        for (int i = 0, n = text.length(); i < n; i++) {
+            buffer[offset++] = (byte) text.charAt(i);
+        }
+        return offset;
+    }
+
+    // escreve os count últimos dígitos de um valor não negativo, completando com zeros à esquerda
+    private static int digits(long value, int count, byte[] buffer, int offset) {
+        int end = offset + count;
+        for (int index = end - 1; index >= offset; index--) {
+            buffer[index] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        return end;
+    }
+
+    // a mantissa e a potência de 10 são exatas, então uma única operação produz o double mais próximo
+    private static boolean exact(long mantissa, int exponent) {
+        return mantissa == 0 || (mantissa < EXACT_LIMIT && exponent >= -22 && exponent <= 22);
+    }
+
+    private static NumberFormatException invalid(String text) {
+        return new NumberFormatException("For input string: \"" + text + "\"");
+    }
+
+    // escreve digits * 10^-scale no mesmo formato do Double.toString(double)
+    private static int layout(long digits, int scale, byte[] buffer, int offset) {
+        int count = length(digits);
+        int exponent = count - 1 - scale; // expoente do primeiro dígito
+        if (exponent >= -3 && exponent < 7) {
+            if (exponent < 0) {
+                buffer[offset++] = '0';
+                buffer[offset++] = '.';
+                for (int i = exponent + 1; i < 0; i++) {
+                    buffer[offset++] = '0';
+                }
+                return digits(digits, count, buffer, offset);
+            }
+            int integers = exponent + 1;
+            if (count <= integers) {
+                offset = digits(digits, count, buffer, offset);
+                for (int i = count; i < integers; i++) {
+                    buffer[offset++] = '0';
+                }
+                buffer[offset++] = '.';
+                buffer[offset++] = '0';
+                return offset;
+            }
+            long power = LONG_POWERS_OF_TEN[count - integers];
+            offset = digits(digits / power, integers, buffer, offset);
+            buffer[offset++] = '.';
+            return digits(digits % power, count - integers, buffer, offset);
+        }
+        long power = LONG_POWERS_OF_TEN[count - 1];
+        buffer[offset++] = (byte) ('0' + digits / power);
+        buffer[offset++] = '.';
+        if (count > 1) {
+            offset = digits(digits % power, count - 1, buffer, offset);
+        } else {
+            buffer[offset++] = '0';
+        }
+        buffer[offset++] = 'E';
+        return format((long) exponent, buffer, offset);
+    }
+
+    // quantidade de dígitos de um valor não negativo
+    private static int length(long value) {
+        int length = 1;
+        while (length < 19 && value >= LONG_POWERS_OF_TEN[length]) {
+            length++;
+        }
+        return length;
+    }
+
+    // converte acumulando negativamente, como o Long.parseLong, para detectar estouros
+    private static long parseLong(byte[] bytes, int start, int end, long min, long max) {
+        int index = start;
+        boolean negative = index < end && bytes[index] == '-';
+        if (index < end && (negative || bytes[index] == '+')) {
+            index++;
+        }
+        if (index == end) {
+            throw invalid(text(bytes, start, end));
+        }
+        long bound = negative ? min : -max;
+        long multiplyBound = bound / 10;
+        long result = 0;
+        for (; index < end; index++) {
+            int digit = bytes[index] - '0';
+            if (digit < 0 || digit > 9 || result < multiplyBound) {
+                throw invalid(text(bytes, start, end));
+            }
+            result *= 10;
+            if (result < bound + digit) {
+                throw invalid(text(bytes, start, end));
+            }
+            result -= digit;
+        }
+        return negative ? result : -result;
+    }
+
+    private static long parseLong(char[] chars, int start, int end, long min, long max) {
+        int index = start;
+        boolean negative = index < end && chars[index] == '-';
+        if (index < end && (negative || chars[index] == '+')) {
+            index++;
+        }
+        if (index == end) {
+            throw invalid(new String(chars, start, end - start));
+        }
+        long bound = negative ? min : -max;
+        long multiplyBound = bound / 10;
+        long result = 0;
+        for (; index < end; index++) {
+            int digit = chars[index] - '0';
+            if (digit < 0 || digit > 9 || result < multiplyBound) {
+                throw invalid(new String(chars, start, end - start));
+            }
+            result *= 10;
+            if (result < bound + digit) {
+                throw invalid(new String(chars, start, end - start));
+            }
+            result -= digit;
+        }
+        return negative ? result : -result;
+    }
+
+    // os dígitos de value * 10^scale, arredondados
+    private static long scaled(double value, int scale) {
+        return Math.round(scale < 0 ? value / POWERS_OF_TEN[-scale] : value * POWERS_OF_TEN[scale]);
+    }
+
+    // a escala da representação decimal mais curta de um valor positivo, que lida de volta resulta exatamente no mesmo valor
+    private static int shortestScale(double value) {
+        int exponent = (int) Math.floor(Math.log10(value)); // pode errar por um perto das potências de 10, o que não afeta o resultado
+        for (int precision = 1; precision <= 17; precision++) {
+            int scale = precision - 1 - exponent;
+            if (scale < -22 || scale > 22) {
+                break;
+            }
+            // o candidato mais próximo com essa precisão, que é conferido pela conversão exata de volta
+            long digits = scaled(value, scale);
+            if (digits >= EXACT_LIMIT) {
+                break;
+            }
+            double candidate = scale < 0 ? digits * POWERS_OF_TEN[-scale] : digits / POWERS_OF_TEN[scale];
+            if (candidate == value) {
+                return scale;
+            }
+        }
+        return NO_SCALE;
+    }
+
+    private static String text(byte[] bytes, int start, int end) {
+        return new String(bytes, start, end - start, StandardCharsets.ISO_8859_1);
+    }
+
+    private static double toDouble(long mantissa, int exponent) {
+        if (mantissa == 0) {
+            return 0;
+        }
+        return exponent < 0 ? mantissa / POWERS_OF_TEN[-exponent] : mantissa * POWERS_OF_TEN[exponent];
+    }
+
+    // não faz sentido instanciar esta classe
+    private Numbers() {}
+}
@@ -0,0 +1,159 @@
+package br.com.staroski.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * An {@link OutputStream} for part files, that writes to the file in large blocks and can flush the written data to the device periodically.<br>
+ * When the expected size of the file is known, the file is extended to that size as soon as it is opened, letting the file system reserve its space in
+ * a single step where it supports it, and it is truncated to the size actually written when closed.<br>
+ * The data is accumulated in a buffer whose size is a multiple of {@link #ALIGNMENT}, so every write to the file, except the last one, is a
+ * whole aligned block.<br>
+ * With a sync interval, the data written is forced to the device every time that many bytes are written and once more when the file is closed, so
+ * dirty pages do not pile up in memory until the end of the part.
+ *
+ * @author Ricardo Artur Staroski
+ */
+public final class PartOutputStream extends OutputStream {
+
+    /**
+     * The alignment of the blocks, the page size of most file systems.
+     */
+    public static final int ALIGNMENT = 4096;
+
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private final long syncInterval;
+    private long written;
+    private long unsynced;
+    private boolean closed;
+
+    /**
+     * Creates a {@link PartOutputStream} with blocks of {@link IO#BLOCK_SIZE} bytes and no periodic sync.
+     *
+     * @param partFile
+     *            The part file, created or overwritten.
+     *
+     * @throws IOException
+     *             If the file cannot be opened.
+     */
+    public PartOutputStream(File partFile) throws IOException {
+        this(partFile, 0, IO.BLOCK_SIZE, 0);
+    }
+
+    /**
+     * Creates a {@link PartOutputStream}.
+     *
+     * @param partFile
+     *            The part file, created or overwritten.
+     *
+     * @param expectedSize
+     *            The expected size of the part, or <code>0</code> if unknown.
+     *
+     * @param blockSize
+     *            The size of the blocks written to the file, rounded up to a multiple of {@link #ALIGNMENT}.
+     *
+     * @param syncInterval
+     *            The number of bytes written between each flush to the device, or <code>0</code> to leave it to the operating system.
+     *
+     * @throws IOException
+     *             If the file cannot be opened.
+     */
+    public PartOutputStream(File partFile, long expectedSize, int blockSize, long syncInterval) throws IOException {
+        this.file = new RandomAccessFile(partFile, "rw");
+        this.channel = file.getChannel();
+        try {
+            channel.truncate(0);
+            if (expectedSize > 0) {
+                file.setLength(expectedSize);
+            }
+        } catch (IOException e) {
+            file.close();
+            throw e;
+        }
+        int blocks = Math.max(1, (blockSize + ALIGNMENT - 1) / ALIGNMENT);
+        this.buffer = ByteBuffer.allocate(blocks * ALIGNMENT);
+        this.syncInterval = syncInterval;
+    }
+
+    /**
+     * Writes the remaining data, forces it to the device when there is a sync interval, truncates the file to the size actually written and closes it.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            drain();
+            channel.truncate(written);
+            if (syncInterval > 0) {
+                channel.force(true);
+            }
+        } finally {
+            file.close();
+        }
+    }
+
+    /**
+     * Writes the accumulated data to the file, even if it does not fill a whole block.
+     */
+    @Override
+    public void flush() throws IOException {
+        ensureOpen();
+        drain();
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        ensureOpen();
+        while (length > 0) {
+            if (!buffer.hasRemaining()) {
+                drain();
+            }
+            int count = Math.min(length, buffer.remaining());
+            buffer.put(bytes, offset, count);
+            offset += count;
+            length -= count;
+        }
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        ensureOpen();
+        if (!buffer.hasRemaining()) {
+            drain();
+        }
+        buffer.put((byte) b);
+    }
+
+    /**
+     * Writes the buffer to the file at the current position and forces it to the device when the sync interval was reached.
+     */
+    private void drain() throws IOException {
+        ((Buffer) buffer).flip();
+        while (buffer.hasRemaining()) {
+            int count = channel.write(buffer, written);
+            written += count;
+            unsynced += count;
+        }
+        ((Buffer) buffer).clear();
+        if (syncInterval > 0 && unsynced >= syncInterval) {
+            channel.force(false);
+            unsynced = 0;
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+    }
+}
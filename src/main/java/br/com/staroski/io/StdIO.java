@@ -1,667 +1,502 @@
 package br.com.staroski.io;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.io.PrintStream;
+import java.lang.ref.WeakReference;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoublePredicate;
+import java.util.function.Function;
+import java.util.function.IntPredicate;
+import java.util.function.LongPredicate;
 import java.util.function.Predicate;
 
 /**
- * Classe utilitária para ler entrada de dados pelo teclado e escrever na saída padrão do sistema.
+ * Classe utilitária para ler entrada de dados pelo teclado e escrever na saída padrão do sistema.<br>
+ * Os métodos <code>read*</code> leem uma linha inteira por valor, já os métodos <code>next*</code> leem tokens separados por espaços em branco,
+ * podendo haver vários numa mesma linha, e convertem os números direto dos bytes lidos, sem criar objetos por valor.<br>
+ * Os métodos <code>read*Array</code> e <code>read*Matrix</code> preenchem vetores e matrizes primitivos a partir desses mesmos tokens.<br>
+ * Os métodos <code>readValid*</code> e <code>nextValid*</code> validam os valores com predicados primitivos, sem converter cada valor para o seu wrapper.<br>
+ * Para ler e escrever em outros streams, sem compartilhar o buffer da entrada padrão, utilize a classe {@link StreamIO}.
  */
 public final class StdIO {
 
-    private static final String TYPE_BYTE = "byte";
-    private static final String TYPE_BOOLEAN = "boolean";
-    private static final String TYPE_SHORT = "short";
-    private static final String TYPE_CHAR = "char";
-    private static final String TYPE_INT = "int";
-    private static final String TYPE_FLOAT = "float";
-    private static final String TYPE_LONG = "long";
-    private static final String TYPE_DOUBLE = "double";
-    private static final String TYPE_STRING = "String";
+    // o BulkWriter de uma thread, a thread é referenciada fracamente para não impedir que ela seja coletada
+    // só a própria thread usa o seu BulkWriter, as demais apenas o marcam como pendente ou o descarregam depois que ela termina
+    private static final class Bulk {
 
-    private static final String PREDICATE_FAILED = "não atende ao predicado informado!";
-    private static final String INVALID = "não é válido!";
+        final WeakReference<Thread> owner;
+        final BulkWriter writer;
+        volatile boolean pending;
+
+        Bulk(Thread owner, BulkWriter writer) {
+            this.owner = new WeakReference<Thread>(owner);
+            this.writer = writer;
+        }
+
+        boolean isDead() {
+            Thread thread = owner.get();
+            return thread == null || !thread.isAlive();
+        }
+    }
+
+    private static final PrintStream OUT = System.out;
+
+    // no modo de saída em massa cada thread acumula a sua saída num BulkWriter próprio, sem sincronizar a cada chamada
+    // os BulkWriters das threads que terminaram são descarregados e descartados sempre que uma nova thread registra o seu e quando a JVM termina
+    private static final List<Bulk> BULK_WRITERS = new ArrayList<>();
+    private static final ThreadLocal<Bulk> BULK = new ThreadLocal<>();
+    private static boolean flushOnShutdown;
 
     // não estou utilizando Scanner pois ele não é legal para ler entrada de dados a partir do teclado
     // o Scanner não consome a quebra de linha ao presionar ENTER e isso gera comportamentos indesejados
-    private static final BufferedReader IN = new BufferedReader(new InputStreamReader(System.in));
-    private static final PrintStream OUT = System.out;
+    // linhas e tokens são lidos pelo mesmo TokenReader, assim compartilham o buffer sobre o System.in
+    // as leituras são sincronizadas pois todas as threads compartilham esse buffer
+    private static final StreamIO STD = new StreamIO(System.in, OUT, Charset.defaultCharset(), () -> bulk().writer, StdIO::pending);
+
+    /**
+     * Descarrega a saída acumulada pela thread atual no modo de saída em massa.
+     */
+    public static void flush() {
+        STD.flush();
+    }
+
+    public static int getMaxAttempts() {
+        return STD.getMaxAttempts();
+    }
+
+    public static synchronized boolean hasNext() {
+        return STD.hasNext();
+    }
+
+    public static boolean isBulkOutput() {
+        return STD.isBulkOutput();
+    }
+
+    public static synchronized String next() {
+        return STD.next();
+    }
+
+    public static synchronized double nextDouble() {
+        return STD.nextDouble();
+    }
+
+    public static synchronized int nextInt() {
+        return STD.nextInt();
+    }
+
+    public static synchronized long nextLong() {
+        return STD.nextLong();
+    }
+
+    public static synchronized double[] nextValidDoubles(int count, DoublePredicate predicate) {
+        return STD.nextValidDoubles(count, predicate);
+    }
+
+    public static synchronized int[] nextValidInts(int count, IntPredicate predicate) {
+        return STD.nextValidInts(count, predicate);
+    }
+
+    public static synchronized long[] nextValidLongs(int count, LongPredicate predicate) {
+        return STD.nextValidLongs(count, predicate);
+    }
 
     public static void print(boolean value) {
-        OUT.print(value);
+        STD.print(value);
     }
 
     public static void print(char value) {
-        OUT.print(value);
+        STD.print(value);
     }
 
     public static void print(char[] chars) {
-        OUT.print(chars);
+        STD.print(chars);
     }
 
     public static void print(double value) {
-        OUT.print(value);
+        STD.print(value);
+    }
+
+    public static void print(double value, int decimals) {
+        STD.print(value, decimals);
     }
 
     public static void print(float value) {
-        OUT.print(value);
+        STD.print(value);
     }
 
     public static void print(int value) {
-        OUT.print(value);
+        STD.print(value);
     }
 
     public static void print(long value) {
-        OUT.print(value);
+        STD.print(value);
     }
 
     public static void print(Object object) {
-        OUT.print(object);
+        STD.print(object);
     }
 
     public static void print(String text) {
-        OUT.print(text);
+        STD.print(text);
     }
 
     public static PrintStream printf(Locale locale, String format, Object... args) {
-        return OUT.printf(locale, format, args);
+        return STD.printf(locale, format, args);
     }
 
     public static PrintStream printf(String format, Object... args) {
-        return OUT.printf(format, args);
+        return STD.printf(format, args);
     }
 
     public static void println() {
-        OUT.println();
+        STD.println();
     }
 
     public static void println(boolean value) {
-        OUT.println(value);
+        STD.println(value);
     }
 
     public static void println(char value) {
-        OUT.println(value);
+        STD.println(value);
     }
 
     public static void println(char[] value) {
-        OUT.println(value);
+        STD.println(value);
     }
 
     public static void println(double value) {
-        OUT.println(value);
+        STD.println(value);
+    }
+
+    public static void println(double value, int decimals) {
+        STD.println(value, decimals);
     }
 
     public static void println(float value) {
-        OUT.println(value);
+        STD.println(value);
     }
 
     public static void println(int value) {
-        OUT.println(value);
+        STD.println(value);
     }
 
     public static void println(long value) {
-        OUT.println(value);
+        STD.println(value);
     }
 
     public static void println(Object object) {
-        OUT.println(object);
+        STD.println(object);
     }
 
     public static void println(String text) {
-        OUT.println(text);
+        STD.println(text);
     }
 
-    public static boolean readBoolean() {
-        while (true) {
-            try {
-                return Boolean.parseBoolean(IN.readLine());
-            } catch (IOException ioe) {
-                throw wrap(ioe);
-            }
-        }
+    /**
+     * Carrega para a memória todo o restante da entrada padrão, de uma só vez, acelerando as leituras seguintes de entradas muito grandes.
+     */
+    public static synchronized void preloadInput() {
+        STD.preloadInput();
     }
 
-    public static boolean readBoolean(Predicate<Boolean> predicate) {
-        while (true) {
-            String line = null;
-            try {
-                line = IN.readLine();
-                boolean value = Boolean.parseBoolean(line);
-                if (predicate.test(value)) {
-                    return value;
-                }
-                showMessage(TYPE_BOOLEAN, line, PREDICATE_FAILED);
-            } catch (Exception e) {
-                if (e instanceof IOException) {
-                    throw wrap(e);
-                }
-                showMessage(TYPE_BOOLEAN, line, INVALID);
-            }
-        }
+    public static synchronized boolean readBoolean() {
+        return STD.readBoolean();
     }
 
-    public static boolean readBoolean(String message) {
-        while (true) {
-            try {
-                print(message);
-                return Boolean.parseBoolean(IN.readLine());
-            } catch (IOException ioe) {
-                throw wrap(ioe);
-            }
-        }
+    public static synchronized boolean readBoolean(Predicate<Boolean> predicate) {
+        return STD.readBoolean(predicate);
     }
 
-    public static boolean readBoolean(String message, Predicate<Boolean> predicate) {
-        while (true) {
-            String line = null;
-            try {
-                print(message);
-                line = IN.readLine();
-                boolean value = Boolean.parseBoolean(line);
-                if (predicate.test(value)) {
-                    return value;
-                }
-                showMessage(TYPE_BOOLEAN, line, PREDICATE_FAILED);
-            } catch (Exception e) {
-                if (e instanceof IOException) {
-                    throw wrap(e);
-                }
-                showMessage(TYPE_BOOLEAN, line, INVALID);
-            }
-        }
+    public static synchronized boolean readBoolean(String message) {
+        return STD.readBoolean(message);
     }
 
-    public static byte readByte() {
-        while (true) {
-            try {
-                return Byte.parseByte(IN.readLine());
-            } catch (IOException ioe) {
-                throw wrap(ioe);
-            }
-        }
+    public static synchronized boolean readBoolean(String message, Predicate<Boolean> predicate) {
+        return STD.readBoolean(message, predicate);
     }
 
-    public static byte readByte(Predicate<Byte> predicate) {
-        while (true) {
-            String line = null;
-            try {
-                line = IN.readLine();
-                byte value = Byte.parseByte(line);
-                if (predicate.test(value)) {
-                    return value;
-                }
-                showMessage(TYPE_BYTE, line, PREDICATE_FAILED);
-            } catch (Exception e) {
-                if (e instanceof IOException) {
-                    throw wrap(e);
-                }
-                showMessage(TYPE_BYTE, line, INVALID);
-            }
-        }
+    public static synchronized byte readByte() {
+        return STD.readByte();
     }
 
-    public static byte readByte(String message) {
-        while (true) {
-            try {
-                print(message);
-                return Byte.parseByte(IN.readLine());
-            } catch (IOException ioe) {
-                throw wrap(ioe);
-            }
-        }
+    public static synchronized byte readByte(Predicate<Byte> predicate) {
+        return STD.readByte(predicate);
     }
 
-    public static byte readByte(String message, Predicate<Byte> predicate) {
-        while (true) {
-            String line = null;
-            try {
-                print(message);
-                line = IN.readLine();
-                byte value = Byte.parseByte(line);
-                if (predicate.test(value)) {
-                    return value;
-                }
-                showMessage(TYPE_BYTE, line, PREDICATE_FAILED);
-            } catch (Exception e) {
-                if (e instanceof IOException) {
-                    throw wrap(e);
-                }
-                showMessage(TYPE_BYTE, line, INVALID);
-            }
-        }
+    public static synchronized byte readByte(String message) {
+        return STD.readByte(message);
     }
 
-    public static char readChar() {
-        while (true) {
-            try {
-                return IN.readLine().charAt(0);
-            } catch (IOException ioe) {
-                throw wrap(ioe);
-            }
-        }
+    public static synchronized byte readByte(String message, Predicate<Byte> predicate) {
+        return STD.readByte(message, predicate);
     }
 
-    public static char readChar(Predicate<Character> predicate) {
-        while (true) {
-            String line = null;
-            try {
-                line = IN.readLine().substring(0, 1);
-                char value = line.charAt(0);
-                if (predicate.test(value)) {
-                    return value;
-                }
-                showMessage(TYPE_CHAR, line, PREDICATE_FAILED);
-            } catch (Exception e) {
-                if (e instanceof IOException) {
-                    throw wrap(e);
-                }
-                showMessage(TYPE_CHAR, line, INVALID);
-            }
-        }
+    public static synchronized char readChar() {
+        return STD.readChar();
     }
 
-    public static char readChar(String message) {
-        while (true) {
-            try {
-                print(message);
-                return IN.readLine().charAt(0);
-            } catch (IOException ioe) {
-                throw wrap(ioe);
-            }
-        }
+    public static synchronized char readChar(Predicate<Character> predicate) {
+        return STD.readChar(predicate);
     }
 
-    public static char readChar(String message, Predicate<Character> predicate) {
-        while (true) {
-            String line = null;
-            try {
-                print(message);
-                line = IN.readLine().substring(0, 1);
-                char value = line.charAt(0);
-                if (predicate.test(value)) {
-                    return value;
-                }
-                showMessage(TYPE_CHAR, line, PREDICATE_FAILED);
-            } catch (Exception e) {
-                if (e instanceof IOException) {
-                    throw wrap(e);
-                }
-                showMessage(TYPE_CHAR, line, INVALID);
-            }
-        }
+    public static synchronized char readChar(String message) {
+        return STD.readChar(message);
     }
 
-    public static double readDouble() {
-        while (true) {
-            try {
-                return Double.parseDouble(IN.readLine());
-            } catch (IOException ioe) {
-                throw wrap(ioe);
-            }
-        }
+    public static synchronized char readChar(String message, Predicate<Character> predicate) {
+        return STD.readChar(message, predicate);
     }
 
-    public static double readDouble(Predicate<Double> predicate) {
-        while (true) {
-            String line = null;
-            try {
-                line = IN.readLine();
-                double value = Double.parseDouble(line);
-                if (predicate.test(value)) {
-                    return value;
-                }
-                showMessage(TYPE_DOUBLE, line, PREDICATE_FAILED);
-            } catch (Exception e) {
-                if (e instanceof IOException) {
-                    throw wrap(e);
-                }
-                showMessage(TYPE_DOUBLE, line, INVALID);
-            }
-        }
+    public static synchronized double readDouble() {
+        return STD.readDouble();
     }
 
-    public static double readDouble(String message) {
-        while (true) {
-            try {
-                print(message);
-                return Double.parseDouble(IN.readLine());
-            } catch (IOException ioe) {
-                throw wrap(ioe);
-            }
-        }
+    public static synchronized double readDouble(Predicate<Double> predicate) {
+        return STD.readDouble(predicate);
     }
 
-    public static double readDouble(String message, Predicate<Double> predicate) {
-        while (true) {
-            String line = null;
-            try {
-                print(message);
-                line = IN.readLine();
-                double value = Double.parseDouble(line);
-                if (predicate.test(value)) {
-                    return value;
-                }
-                showMessage(TYPE_DOUBLE, line, PREDICATE_FAILED);
-            } catch (Exception e) {
-                if (e instanceof IOException) {
-                    throw wrap(e);
-                }
-                showMessage(TYPE_DOUBLE, line, INVALID);
-            }
-        }
+    public static synchronized double readDouble(String message) {
+        return STD.readDouble(message);
     }
 
-    public static float readFloat() {
-        while (true) {
-            try {
-                return Float.parseFloat(IN.readLine());
-            } catch (IOException ioe) {
-                throw wrap(ioe);
-            }
-        }
+    public static synchronized double readDouble(String message, Predicate<Double> predicate) {
+        return STD.readDouble(message, predicate);
     }
 
-    public static float readFloat(Predicate<Float> predicate) {
-        while (true) {
-            String line = null;
-            try {
-                line = IN.readLine();
-                float value = Float.parseFloat(line);
-                if (predicate.test(value)) {
-                    return value;
-                }
-                showMessage(TYPE_FLOAT, line, PREDICATE_FAILED);
-            } catch (Exception e) {
-                if (e instanceof IOException) {
-                    throw wrap(e);
-                }
-                showMessage(TYPE_FLOAT, line, INVALID);
-            }
-        }
+    public static synchronized double[] readDoubleArray(int count) {
+        return STD.readDoubleArray(count);
     }
 
-    public static float readFloat(String message) {
-        while (true) {
-            try {
-                print(message);
-                return Float.parseFloat(IN.readLine());
-            } catch (IOException ioe) {
-                throw wrap(ioe);
-            }
-        }
+    public static synchronized double[][] readDoubleMatrix(int rows, int columns) {
+        return STD.readDoubleMatrix(rows, columns);
     }
 
-    public static float readFloat(String message, Predicate<Float> predicate) {
-        while (true) {
-            String line = null;
-            try {
-                print(message);
-                line = IN.readLine();
-                float value = Float.parseFloat(line);
-                if (predicate.test(value)) {
-                    return value;
-                }
-                showMessage(TYPE_FLOAT, line, PREDICATE_FAILED);
-            } catch (Exception e) {
-                if (e instanceof IOException) {
-                    throw wrap(e);
-                }
-                showMessage(TYPE_FLOAT, line, INVALID);
-            }
-        }
+    public static synchronized float readFloat() {
+        return STD.readFloat();
     }
 
-    public static int readInt() {
-        while (true) {
-            try {
-                return Integer.parseInt(IN.readLine());
-            } catch (IOException ioe) {
-                throw wrap(ioe);
-            }
-        }
+    public static synchronized float readFloat(Predicate<Float> predicate) {
+        return STD.readFloat(predicate);
     }
 
-    public static int readInt(Predicate<Integer> predicate) {
-        while (true) {
-            String line = null;
-            try {
-                line = IN.readLine();
-                int value = Integer.parseInt(line);
-                if (predicate.test(value)) {
-                    return value;
-                }
-                showMessage(TYPE_INT, line, PREDICATE_FAILED);
-            } catch (Exception e) {
-                if (e instanceof IOException) {
-                    throw wrap(e);
-                }
-                showMessage(TYPE_INT, line, INVALID);
-            }
-        }
+    public static synchronized float readFloat(String message) {
+        return STD.readFloat(message);
     }
 
-    public static int readInt(String message) {
-        while (true) {
-            try {
-                print(message);
-                return Integer.parseInt(IN.readLine());
-            } catch (IOException ioe) {
-                throw wrap(ioe);
-            }
-        }
+    public static synchronized float readFloat(String message, Predicate<Float> predicate) {
+        return STD.readFloat(message, predicate);
     }
 
-    public static int readInt(String message, Predicate<Integer> predicate) {
-        while (true) {
-            String line = null;
-            try {
-                print(message);
-                line = IN.readLine();
-                int value = Integer.parseInt(line);
-                if (predicate.test(value)) {
-                    return value;
-                }
-                showMessage(TYPE_INT, line, PREDICATE_FAILED);
-            } catch (Exception e) {
-                if (e instanceof IOException) {
-                    throw wrap(e);
-                }
-                showMessage(TYPE_INT, line, INVALID);
-            }
-        }
+    public static synchronized int readInt() {
+        return STD.readInt();
     }
 
-    public static long readLong() {
-        while (true) {
-            try {
-                return Long.parseLong(IN.readLine());
-            } catch (IOException ioe) {
-                throw wrap(ioe);
-            }
-        }
+    public static synchronized int readInt(Predicate<Integer> predicate) {
+        return STD.readInt(predicate);
     }
 
-    public static long readLong(Predicate<Long> predicate) {
-        while (true) {
-            String line = null;
-            try {
-                line = IN.readLine();
-                long value = Long.parseLong(line);
-                if (predicate.test(value)) {
-                    return value;
-                }
-                showMessage(TYPE_LONG, line, PREDICATE_FAILED);
-            } catch (Exception e) {
-                if (e instanceof IOException) {
-                    throw wrap(e);
-                }
-                showMessage(TYPE_LONG, line, INVALID);
-            }
-        }
+    public static synchronized int readInt(String message) {
+        return STD.readInt(message);
     }
 
-    public static long readLong(String message) {
-        while (true) {
-            try {
-                print(message);
-                return Long.parseLong(IN.readLine());
-            } catch (IOException ioe) {
-                throw wrap(ioe);
-            }
-        }
+    public static synchronized int readInt(String message, Predicate<Integer> predicate) {
+        return STD.readInt(message, predicate);
     }
 
-    public static long readLong(String message, Predicate<Long> predicate) {
-        while (true) {
-            String line = null;
-            try {
-                print(message);
-                line = IN.readLine();
-                long value = Long.parseLong(line);
-                if (predicate.test(value)) {
-                    return value;
-                }
-                showMessage(TYPE_LONG, line, PREDICATE_FAILED);
-            } catch (Exception e) {
-                if (e instanceof IOException) {
-                    throw wrap(e);
-                }
-                showMessage(TYPE_LONG, line, INVALID);
-            }
-        }
+    public static synchronized int[] readIntArray(int count) {
+        return STD.readIntArray(count);
     }
 
-    public static short readShort() {
-        while (true) {
-            try {
-                return Short.parseShort(IN.readLine());
-            } catch (IOException ioe) {
-                throw wrap(ioe);
-            }
-        }
+    public static synchronized int[][] readIntMatrix(int rows, int columns) {
+        return STD.readIntMatrix(rows, columns);
     }
 
-    public static short readShort(Predicate<Short> predicate) {
-        while (true) {
-            String line = null;
-            try {
-                line = IN.readLine();
-                short value = Short.parseShort(line);
-                if (predicate.test(value)) {
-                    return value;
-                }
-                showMessage(TYPE_SHORT, line, PREDICATE_FAILED);
-            } catch (Exception e) {
-                if (e instanceof IOException) {
-                    throw wrap(e);
-                }
-                showMessage(TYPE_SHORT, line, INVALID);
-            }
-        }
+    public static synchronized long readLong() {
+        return STD.readLong();
     }
 
-    public static short readShort(String message) {
-        while (true) {
-            try {
-                print(message);
-                return Short.parseShort(IN.readLine());
-            } catch (IOException ioe) {
-                throw wrap(ioe);
-            }
-        }
+    public static synchronized long readLong(Predicate<Long> predicate) {
+        return STD.readLong(predicate);
     }
 
-    public static short readShort(String message, Predicate<Short> predicate) {
-        while (true) {
-            String line = null;
-            try {
-                print(message);
-                line = IN.readLine();
-                short value = Short.parseShort(line);
-                if (predicate.test(value)) {
-                    return value;
-                }
-                showMessage(TYPE_SHORT, line, PREDICATE_FAILED);
-            } catch (Exception e) {
-                if (e instanceof IOException) {
-                    throw wrap(e);
-                }
-                showMessage(TYPE_SHORT, line, INVALID);
-            }
-        }
+    public static synchronized long readLong(String message) {
+        return STD.readLong(message);
     }
 
-    public static String readString() {
-        while (true) {
-            try {
-                return IN.readLine();
-            } catch (IOException ioe) {
-                throw wrap(ioe);
-            }
-        }
+    public static synchronized long readLong(String message, Predicate<Long> predicate) {
+        return STD.readLong(message, predicate);
     }
 
-    public static String readString(Predicate<String> predicate) {
-        while (true) {
-            String line = null;
-            try {
+    public static synchronized long[] readLongArray(int count) {
+        return STD.readLongArray(count);
+    }
 
-                line = IN.readLine();
-                if (predicate.test(line)) {
-                    return line;
-                }
-                showMessage(TYPE_STRING, line, PREDICATE_FAILED);
-            } catch (Exception e) {
-                if (e instanceof IOException) {
-                    throw wrap(e);
+    public static synchronized long[][] readLongMatrix(int rows, int columns) {
+        return STD.readLongMatrix(rows, columns);
+    }
+
+    public static synchronized boolean readRecord(DelimitedRecord record) {
+        return STD.readRecord(record);
+    }
+
+    public static synchronized short readShort() {
+        return STD.readShort();
+    }
+
+    public static synchronized short readShort(Predicate<Short> predicate) {
+        return STD.readShort(predicate);
+    }
+
+    public static synchronized short readShort(String message) {
+        return STD.readShort(message);
+    }
+
+    public static synchronized short readShort(String message, Predicate<Short> predicate) {
+        return STD.readShort(message, predicate);
+    }
+
+    public static synchronized String readString() {
+        return STD.readString();
+    }
+
+    public static synchronized String readString(Predicate<String> predicate) {
+        return STD.readString(predicate);
+    }
+
+    public static synchronized String readString(String message) {
+        return STD.readString(message);
+    }
+
+    public static synchronized String readString(String message, Predicate<String> predicate) {
+        return STD.readString(message, predicate);
+    }
+
+    public static synchronized double readValidDouble(DoublePredicate predicate) {
+        return STD.readValidDouble(predicate);
+    }
+
+    public static synchronized double readValidDouble(String message, DoublePredicate predicate) {
+        return STD.readValidDouble(message, predicate);
+    }
+
+    public static synchronized int readValidInt(IntPredicate predicate) {
+        return STD.readValidInt(predicate);
+    }
+
+    public static synchronized int readValidInt(String message, IntPredicate predicate) {
+        return STD.readValidInt(message, predicate);
+    }
+
+    public static synchronized long readValidLong(LongPredicate predicate) {
+        return STD.readValidLong(predicate);
+    }
+
+    public static synchronized long readValidLong(String message, LongPredicate predicate) {
+        return STD.readValidLong(message, predicate);
+    }
+
+    /**
+     * Executa a leitura informada numa thread auxiliar, sem bloquear a thread chamadora.
+     *
+     * @see StreamIO#readAsync(Function)
+     */
+    public static <T> CompletableFuture<T> readAsync(Function<? super StreamIO, ? extends T> read) {
+        return STD.readAsync(io -> {
+            synchronized (StdIO.class) {
+                return read.apply(io);
+            }
+        });
+    }
+
+    /**
+     * Liga ou desliga o modo de saída em massa.<br>
+     * Neste modo os métodos <code>print</code> e <code>println</code> acumulam a saída num buffer da thread atual, escrevendo os números direto como
+     * bytes, e só a repassam ao {@link System#out} quando o buffer enche, quando {@link #flush()} é chamado, antes de ler uma entrada com mensagem ou
+     * depois que a thread termina, no mais tardar quando a JVM termina.<br>
+     * Cada buffer só é descarregado pela sua própria thread enquanto ela estiver viva, portanto uma thread que ainda estiver executando quando a JVM
+     * terminar, como a que chama {@link System#exit(int)}, deve chamar {@link #flush()} antes.<br>
+     * Ao desligar o modo, a saída acumulada pela thread atual é descarregada na hora e a das demais threads na próxima vez que cada uma escrever ou
+     * chamar {@link #flush()}, ou quando ela terminar.
+     */
+    public static void setBulkOutput(boolean enabled) {
+        synchronized (BULK_WRITERS) {
+            if (enabled && !flushOnShutdown) {
+                Runtime.getRuntime().addShutdownHook(new Thread(StdIO::prune));
+                flushOnShutdown = true;
+            }
+            if (!enabled) {
+                // marca antes de desligar o modo, assim a thread que já escrever direto na saída encontra o seu buffer pendente
+                for (Bulk bulk : BULK_WRITERS) {
+                    bulk.pending = true;
                 }
-                showMessage(TYPE_STRING, line, INVALID);
             }
         }
+        STD.setBulkOutput(enabled);
+    }
+
+    /**
+     * @see StreamIO#setMaxAttempts(int)
+     */
+    public static void setMaxAttempts(int maxAttempts) {
+        STD.setMaxAttempts(maxAttempts);
     }
 
-    public static String readString(String message) {
-        while (true) {
-            try {
-                print(message);
-                return IN.readLine();
-            } catch (IOException ioe) {
-                throw wrap(ioe);
+    /**
+     * @see StreamIO#setTimeout(long, TimeUnit)
+     */
+    public static void setTimeout(long timeout, TimeUnit unit) {
+        STD.setTimeout(timeout, unit);
+    }
+
+    // o BulkWriter da thread atual, registrado na sua primeira escrita no modo de saída em massa
+    private static Bulk bulk() {
+        Bulk bulk = BULK.get();
+        if (bulk == null) {
+            bulk = new Bulk(Thread.currentThread(), new BulkWriter(OUT));
+            synchronized (BULK_WRITERS) {
+                prune();
+                BULK_WRITERS.add(bulk);
             }
+            BULK.set(bulk);
         }
+        return bulk;
     }
 
-    public static String readString(String message, Predicate<String> predicate) {
-        while (true) {
-            String line = null;
-            try {
-                print(message);
-                line = IN.readLine();
-                if (predicate.test(line)) {
-                    return line;
-                }
-                showMessage(TYPE_STRING, line, PREDICATE_FAILED);
-            } catch (Exception e) {
-                if (e instanceof IOException) {
-                    throw wrap(e);
-                }
-                showMessage(TYPE_STRING, line, INVALID);
-            }
+    private static void flushQuietly(BulkWriter writer) {
+        try {
+            writer.flush();
+        } catch (IOException ioe) {
+            // não há mais a quem reportar
         }
     }
 
-    private static void showMessage(String type, String value, String message) {
-        println("O valor \"" + value + "\" para o tipo " + type + " " + message);
+    // o BulkWriter que a thread atual acumulou antes do modo de saída em massa ser desligado e que ela ainda não descarregou
+    private static BulkWriter pending() {
+        Bulk bulk = BULK.get();
+        if (bulk == null || !bulk.pending) {
+            return null;
+        }
+        bulk.pending = false;
+        return bulk.writer;
     }
 
-    private static RuntimeException wrap(Throwable t) {
-        if (t instanceof RuntimeException) {
-            return (RuntimeException) t;
+    // descarrega e descarta os BulkWriters das threads que terminaram, que ninguém mais vai usar
+    private static void prune() {
+        synchronized (BULK_WRITERS) {
+            for (Iterator<Bulk> iterator = BULK_WRITERS.iterator(); iterator.hasNext();) {
+                Bulk bulk = iterator.next();
+                if (bulk.isDead()) {
+                    flushQuietly(bulk.writer);
+                    iterator.remove();
+                }
+            }
         }
-        return new RuntimeException(t.getLocalizedMessage(), t);
     }
 
     private StdIO() {}
@@ -0,0 +1,1360 @@
+package br.com.staroski.io;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UnsupportedEncodingException;
+import java.nio.charset.Charset;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoublePredicate;
+import java.util.function.Function;
+import java.util.function.IntPredicate;
+import java.util.function.LongPredicate;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Oferece as mesmas leituras e escritas da classe {@link StdIO}, porém ligadas a qualquer {@link InputStream} e {@link OutputStream}, como arquivos,
+ * pipes, sockets ou buffers em memória.<br>
+ * Cada instância tem o seu próprio buffer de leitura e não é sincronizada, permitindo executar vários leitores ao mesmo tempo, um por thread ou
+ * conexão, sem disputar um bloqueio global.<br>
+ * As leituras podem ter um tempo limite ({@link #setTimeout(long, TimeUnit)}), as leituras com validação podem ter um número máximo de tentativas
+ * ({@link #setMaxAttempts(int)}) e qualquer leitura pode ser feita de forma assíncrona ({@link #readAsync(Function)}).
+ */
+public final class StreamIO implements Closeable {
+
+    private static final String TYPE_BYTE = "byte";
+    private static final String TYPE_BOOLEAN = "boolean";
+    private static final String TYPE_SHORT = "short";
+    private static final String TYPE_CHAR = "char";
+    private static final String TYPE_INT = "int";
+    private static final String TYPE_FLOAT = "float";
+    private static final String TYPE_LONG = "long";
+    private static final String TYPE_DOUBLE = "double";
+    private static final String TYPE_STRING = "String";
+
+    private static final String PREDICATE_FAILED = "não atende ao predicado informado!";
+    private static final String INVALID = "não é válido!";
+
+    // threads usadas pelas leituras assíncronas, que podem ficar bloqueadas esperando a entrada
+    private static final ExecutorService ASYNC = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "StreamIO-async");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final TimeoutInputStream input;
+    private final TokenReader in;
+    private final PrintStream out;
+    private final Supplier<BulkWriter> bulk;
+    private final Supplier<BulkWriter> pending;
+    private volatile boolean bulkOutput;
+    private volatile int maxAttempts;
+
+    // última leitura assíncrona agendada, as seguintes só começam depois dela
+    private CompletableFuture<?> lastAsync = CompletableFuture.completedFuture(null);
+
+    public StreamIO(InputStream in, OutputStream out) {
+        this(in, out, Charset.defaultCharset());
+    }
+
+    public StreamIO(InputStream in, OutputStream out, Charset charset) {
+        this(in, printStream(out, charset), charset, null, null);
+    }
+
+    // usado pela StdIO, que mantém um BulkWriter por thread, sem ele a instância usa um único BulkWriter
+    // pending devolve o BulkWriter que a thread atual ainda precisa descarregar antes de escrever direto na saída, ou null
+    StreamIO(InputStream in, PrintStream out, Charset charset, Supplier<BulkWriter> bulk, Supplier<BulkWriter> pending) {
+        this.input = new TimeoutInputStream(in);
+        this.in = new TokenReader(input, charset);
+        this.out = out;
+        this.bulk = bulk != null ? bulk : new Supplier<BulkWriter>() {
+
+            private BulkWriter writer;
+
+            @Override
+            public BulkWriter get() {
+                if (writer == null) {
+                    writer = new BulkWriter(out, charset);
+                }
+                return writer;
+            }
+        };
+        this.pending = pending != null ? pending : () -> null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        in.close();
+        out.close();
+    }
+
+    /**
+     * Descarrega a saída acumulada no modo de saída em massa.
+     */
+    public void flush() {
+        if (bulkOutput) {
+            try {
+                bulk.get().flush();
+            } catch (IOException ioe) {
+                throw wrap(ioe);
+            }
+        }
+        direct().flush();
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public boolean hasNext() {
+        try {
+            return in.hasNext();
+        } catch (IOException ioe) {
+            throw wrap(ioe);
+        }
+    }
+
+    public boolean isBulkOutput() {
+        return bulkOutput;
+    }
+
+    public String next() {
+        try {
+            return in.next();
+        } catch (IOException ioe) {
+            throw wrap(ioe);
+        }
+    }
+
+    public double nextDouble() {
+        try {
+            return in.nextDouble();
+        } catch (IOException ioe) {
+            throw wrap(ioe);
+        }
+    }
+
+    public int nextInt() {
+        try {
+            return in.nextInt();
+        } catch (IOException ioe) {
+            throw wrap(ioe);
+        }
+    }
+
+    public long nextLong() {
+        try {
+            return in.nextLong();
+        } catch (IOException ioe) {
+            throw wrap(ioe);
+        }
+    }
+
+    public double[] nextValidDoubles(int count, DoublePredicate predicate) {
+        double[] values = new double[count];
+        for (int i = 0, attempt = 1; i < count; attempt++) {
+            checkAttempts(attempt);
+            try {
+                double value = in.nextDouble();
+                if (predicate.test(value)) {
+                    values[i++] = value;
+                    attempt = 0;
+                } else {
+                    showMessage(TYPE_DOUBLE, String.valueOf(value), PREDICATE_FAILED);
+                }
+            } catch (NumberFormatException e) {
+                showMessage(TYPE_DOUBLE, in.lastToken(), INVALID);
+            } catch (IOException ioe) {
+                throw wrap(ioe);
+            }
+        }
+        return values;
+    }
+
+    public int[] nextValidInts(int count, IntPredicate predicate) {
+        int[] values = new int[count];
+        for (int i = 0, attempt = 1; i < count; attempt++) {
+            checkAttempts(attempt);
+            try {
+                int value = in.nextInt();
+                if (predicate.test(value)) {
+                    values[i++] = value;
+                    attempt = 0;
+                } else {
+                    showMessage(TYPE_INT, String.valueOf(value), PREDICATE_FAILED);
+                }
+            } catch (NumberFormatException e) {
+                showMessage(TYPE_INT, in.lastToken(), INVALID);
+            } catch (IOException ioe) {
+                throw wrap(ioe);
+            }
+        }
+        return values;
+    }
+
+    public long[] nextValidLongs(int count, LongPredicate predicate) {
+        long[] values = new long[count];
+        for (int i = 0, attempt = 1; i < count; attempt++) {
+            checkAttempts(attempt);
+            try {
+                long value = in.nextLong();
+                if (predicate.test(value)) {
+                    values[i++] = value;
+                    attempt = 0;
+                } else {
+                    showMessage(TYPE_LONG, String.valueOf(value), PREDICATE_FAILED);
+                }
+            } catch (NumberFormatException e) {
+                showMessage(TYPE_LONG, in.lastToken(), INVALID);
+            } catch (IOException ioe) {
+                throw wrap(ioe);
+            }
+        }
+        return values;
+    }
+
+    public void print(boolean value) {
+        if (bulkOutput) {
+            try {
+                bulk.get().print(value);
+            } catch (IOException ioe) {
+                throw wrap(ioe);
+            }
+            return;
+        }
+        direct().print(value);
+    }
+
+    public void print(char value) {
+        if (bulkOutput) {
+            try {
+                bulk.get().print(value);
+            } catch (IOException ioe) {
+                throw wrap(ioe);
+            }
+            return;
+        }
+        direct().print(value);
+    }
+
+    public void print(char[] chars) {
+        if (bulkOutput) {
+            try {
+                bulk.get().print(chars);
+            } catch (IOException ioe) {
+                throw wrap(ioe);
+            }
+            return;
+        }
+        direct().print(chars);
+    }
+
+    public void print(double value) {
+        if (bulkOutput) {
+            try {
+                bulk.get().print(value);
+            } catch (IOException ioe) {
+                throw wrap(ioe);
+            }
+            return;
+        }
+        direct().print(value);
+    }
+
+    /**
+     * Escreve o <code>double</code> com um número fixo de casas decimais e <code>'.'</code> como separador, bem mais rápido que o
+     * {@link #printf(String, Object...)}.
+     *
+     * @see Numbers#format(double, int, byte[], int)
+     */
+    public void print(double value, int decimals) {
+        if (bulkOutput) {
+            try {
+                bulk.get().print(value, decimals);
+            } catch (IOException ioe) {
+                throw wrap(ioe);
+            }
+            return;
+        }
+        direct().print(Numbers.toString(value, decimals));
+    }
+
+    public void print(float value) {
+        if (bulkOutput) {
+            try {
+                bulk.get().print(value);
+            } catch (IOException ioe) {
+                throw wrap(ioe);
+            }
+            return;
+        }
+        direct().print(value);
+    }
+
+    public void print(int value) {
+        if (bulkOutput) {
+            try {
+                bulk.get().print(value);
+            } catch (IOException ioe) {
+                throw wrap(ioe);
+            }
+            return;
+        }
+        direct().print(value);
+    }
+
+    public void print(long value) {
+        if (bulkOutput) {
+            try {
+                bulk.get().print(value);
+            } catch (IOException ioe) {
+                throw wrap(ioe);
+            }
+            return;
+        }
+        direct().print(value);
+    }
+
+    public void print(Object object) {
+        if (bulkOutput) {
+            try {
+                bulk.get().print(object);
+            } catch (IOException ioe) {
+                throw wrap(ioe);
+            }
+            return;
+        }
+        direct().print(object);
+    }
+
+    public void print(String text) {
+        if (bulkOutput) {
+            try {
+                bulk.get().print(text);
+            } catch (IOException ioe) {
+                throw wrap(ioe);
+            }
+            return;
+        }
+        direct().print(text);
+    }
+
+    public PrintStream printf(Locale locale, String format, Object... args) {
+        if (bulkOutput) {
+            print(String.format(locale, format, args));
+            return out;
+        }
+        return direct().printf(locale, format, args);
+    }
+
+    public PrintStream printf(String format, Object... args) {
+        if (bulkOutput) {
+            print(String.format(format, args));
+            return out;
+        }
+        return direct().printf(format, args);
+    }
+
+    public void println() {
+        if (bulkOutput) {
+            try {
+                bulk.get().println();
+            } catch (IOException ioe) {
+                throw wrap(ioe);
+            }
+            return;
+        }
+        direct().println();
+    }
+
+    public void println(boolean value) {
+        if (bulkOutput) {
+            try {
+                bulk.get().println(value);
+            } catch (IOException ioe) {
+                throw wrap(ioe);
+            }
+            return;
+        }
+        direct().println(value);
+    }
+
+    public void println(char value) {
+        if (bulkOutput) {
+            try {
+                bulk.get().println(value);
+            } catch (IOException ioe) {
+                throw wrap(ioe);
+            }
+            return;
+        }
+        direct().println(value);
+    }
+
+    public void println(char[] value) {
+        if (bulkOutput) {
+            try {
+                bulk.get().println(value);
+            } catch (IOException ioe) {
+                throw wrap(ioe);
+            }
+            return;
+        }
+        direct().println(value);
+    }
+
+    public void println(double value) {
+        if (bulkOutput) {
+            try {
+                bulk.get().println(value);
+            } catch (IOException ioe) {
+                throw wrap(ioe);
+            }
+            return;
+        }
+        direct().println(value);
+    }
+
+    public void println(double value, int decimals) {
+        if (bulkOutput) {
+            try {
+                bulk.get().println(value, decimals);
+            } catch (IOException ioe) {
+                throw wrap(ioe);
+            }
+            return;
+        }
+        direct().println(Numbers.toString(value, decimals));
+    }
+
+    public void println(float value) {
+        if (bulkOutput) {
+            try {
+                bulk.get().println(value);
+            } catch (IOException ioe) {
+                throw wrap(ioe);
+            }
+            return;
+        }
+        direct().println(value);
+    }
+
+    public void println(int value) {
+        if (bulkOutput) {
+            try {
+                bulk.get().println(value);
+            } catch (IOException ioe) {
+                throw wrap(ioe);
+            }
+            return;
+        }
+        direct().println(value);
+    }
+
+    public void println(long value) {
+        if (bulkOutput) {
+            try {
+                bulk.get().println(value);
+            } catch (IOException ioe) {
+                throw wrap(ioe);
+            }
+            return;
+        }
+        direct().println(value);
+    }
+
+    public void println(Object object) {
+        if (bulkOutput) {
+            try {
+                bulk.get().println(object);
+            } catch (IOException ioe) {
+                throw wrap(ioe);
+            }
+            return;
+        }
+        direct().println(object);
+    }
+
+    public void println(String text) {
+        if (bulkOutput) {
+            try {
+                bulk.get().println(text);
+            } catch (IOException ioe) {
+                throw wrap(ioe);
+            }
+            return;
+        }
+        direct().println(text);
+    }
+
+    /**
+     * Carrega para a memória todo o restante da entrada, de uma só vez, acelerando as leituras seguintes de entradas muito grandes.
+     */
+    public void preloadInput() {
+        try {
+            in.preload();
+        } catch (IOException ioe) {
+            throw wrap(ioe);
+        }
+    }
+
+    public boolean readBoolean() {
+        while (true) {
+            try {
+                return Boolean.parseBoolean(in.readLine());
+            } catch (IOException ioe) {
+                throw wrap(ioe);
+            }
+        }
+    }
+
+    public boolean readBoolean(Predicate<Boolean> predicate) {
+        for (int attempt = 1;; attempt++) {
+            checkAttempts(attempt);
+            String line = null;
+            try {
+                line = readLine();
+                boolean value = Boolean.parseBoolean(line);
+                if (predicate.test(value)) {
+                    return value;
+                }
+                showMessage(TYPE_BOOLEAN, line, PREDICATE_FAILED);
+            } catch (Exception e) {
+                if (e instanceof IOException) {
+                    throw wrap(e);
+                }
+                showMessage(TYPE_BOOLEAN, line, INVALID);
+            }
+        }
+    }
+
+    public boolean readBoolean(String message) {
+        while (true) {
+            try {
+                prompt(message);
+                return Boolean.parseBoolean(in.readLine());
+            } catch (IOException ioe) {
+                throw wrap(ioe);
+            }
+        }
+    }
+
+    public boolean readBoolean(String message, Predicate<Boolean> predicate) {
+        for (int attempt = 1;; attempt++) {
+            checkAttempts(attempt);
+            String line = null;
+            try {
+                prompt(message);
+                line = readLine();
+                boolean value = Boolean.parseBoolean(line);
+                if (predicate.test(value)) {
+                    return value;
+                }
+                showMessage(TYPE_BOOLEAN, line, PREDICATE_FAILED);
+            } catch (Exception e) {
+                if (e instanceof IOException) {
+                    throw wrap(e);
+                }
+                showMessage(TYPE_BOOLEAN, line, INVALID);
+            }
+        }
+    }
+
+    public byte readByte() {
+        while (true) {
+            try {
+                return Byte.parseByte(in.readLine());
+            } catch (IOException ioe) {
+                throw wrap(ioe);
+            }
+        }
+    }
+
+    public byte readByte(Predicate<Byte> predicate) {
+        for (int attempt = 1;; attempt++) {
+            checkAttempts(attempt);
+            String line = null;
+            try {
+                line = readLine();
+                byte value = Byte.parseByte(line);
+                if (predicate.test(value)) {
+                    return value;
+                }
+                showMessage(TYPE_BYTE, line, PREDICATE_FAILED);
+            } catch (Exception e) {
+                if (e instanceof IOException) {
+                    throw wrap(e);
+                }
+                showMessage(TYPE_BYTE, line, INVALID);
+            }
+        }
+    }
+
+    public byte readByte(String message) {
+        while (true) {
+            try {
+                prompt(message);
+                return Byte.parseByte(in.readLine());
+            } catch (IOException ioe) {
+                throw wrap(ioe);
+            }
+        }
+    }
+
+    public byte readByte(String message, Predicate<Byte> predicate) {
+        for (int attempt = 1;; attempt++) {
+            checkAttempts(attempt);
+            String line = null;
+            try {
+                prompt(message);
+                line = readLine();
+                byte value = Byte.parseByte(line);
+                if (predicate.test(value)) {
+                    return value;
+                }
+                showMessage(TYPE_BYTE, line, PREDICATE_FAILED);
+            } catch (Exception e) {
+                if (e instanceof IOException) {
+                    throw wrap(e);
+                }
+                showMessage(TYPE_BYTE, line, INVALID);
+            }
+        }
+    }
+
+    public char readChar() {
+        while (true) {
+            try {
+                return in.readLine().charAt(0);
+            } catch (IOException ioe) {
+                throw wrap(ioe);
+            }
+        }
+    }
+
+    public char readChar(Predicate<Character> predicate) {
+        for (int attempt = 1;; attempt++) {
+            checkAttempts(attempt);
+            String line = null;
+            try {
+                line = readLine().substring(0, 1);
+                char value = line.charAt(0);
+                if (predicate.test(value)) {
+                    return value;
+                }
+                showMessage(TYPE_CHAR, line, PREDICATE_FAILED);
+            } catch (Exception e) {
+                if (e instanceof IOException) {
+                    throw wrap(e);
+                }
+                showMessage(TYPE_CHAR, line, INVALID);
+            }
+        }
+    }
+
+    public char readChar(String message) {
+        while (true) {
+            try {
+                prompt(message);
+                return in.readLine().charAt(0);
+            } catch (IOException ioe) {
+                throw wrap(ioe);
+            }
+        }
+    }
+
+    public char readChar(String message, Predicate<Character> predicate) {
+        for (int attempt = 1;; attempt++) {
+            checkAttempts(attempt);
+            String line = null;
+            try {
+                prompt(message);
+                line = readLine().substring(0, 1);
+                char value = line.charAt(0);
+                if (predicate.test(value)) {
+                    return value;
+                }
+                showMessage(TYPE_CHAR, line, PREDICATE_FAILED);
+            } catch (Exception e) {
+                if (e instanceof IOException) {
+                    throw wrap(e);
+                }
+                showMessage(TYPE_CHAR, line, INVALID);
+            }
+        }
+    }
+
+    public double readDouble() {
+        while (true) {
+            try {
+                return in.readLineDouble();
+            } catch (IOException ioe) {
+                throw wrap(ioe);
+            }
+        }
+    }
+
+    public double readDouble(Predicate<Double> predicate) {
+        for (int attempt = 1;; attempt++) {
+            checkAttempts(attempt);
+            String line = null;
+            try {
+                line = readLine();
+                double value = Double.parseDouble(line);
+                if (predicate.test(value)) {
+                    return value;
+                }
+                showMessage(TYPE_DOUBLE, line, PREDICATE_FAILED);
+            } catch (Exception e) {
+                if (e instanceof IOException) {
+                    throw wrap(e);
+                }
+                showMessage(TYPE_DOUBLE, line, INVALID);
+            }
+        }
+    }
+
+    public double readDouble(String message) {
+        while (true) {
+            try {
+                prompt(message);
+                return in.readLineDouble();
+            } catch (IOException ioe) {
+                throw wrap(ioe);
+            }
+        }
+    }
+
+    public double readDouble(String message, Predicate<Double> predicate) {
+        for (int attempt = 1;; attempt++) {
+            checkAttempts(attempt);
+            String line = null;
+            try {
+                prompt(message);
+                line = readLine();
+                double value = Double.parseDouble(line);
+                if (predicate.test(value)) {
+                    return value;
+                }
+                showMessage(TYPE_DOUBLE, line, PREDICATE_FAILED);
+            } catch (Exception e) {
+                if (e instanceof IOException) {
+                    throw wrap(e);
+                }
+                showMessage(TYPE_DOUBLE, line, INVALID);
+            }
+        }
+    }
+
+    public double[] readDoubleArray(int count) {
+        try {
+            return in.nextDoubleArray(count);
+        } catch (IOException ioe) {
+            throw wrap(ioe);
+        }
+    }
+
+    public double[][] readDoubleMatrix(int rows, int columns) {
+        try {
+            return in.nextDoubleMatrix(rows, columns);
+        } catch (IOException ioe) {
+            throw wrap(ioe);
+        }
+    }
+
+    public float readFloat() {
+        while (true) {
+            try {
+                return Float.parseFloat(in.readLine());
+            } catch (IOException ioe) {
+                throw wrap(ioe);
+            }
+        }
+    }
+
+    public float readFloat(Predicate<Float> predicate) {
+        for (int attempt = 1;; attempt++) {
+            checkAttempts(attempt);
+            String line = null;
+            try {
+                line = readLine();
+                float value = Float.parseFloat(line);
+                if (predicate.test(value)) {
+                    return value;
+                }
+                showMessage(TYPE_FLOAT, line, PREDICATE_FAILED);
+            } catch (Exception e) {
+                if (e instanceof IOException) {
+                    throw wrap(e);
+                }
+                showMessage(TYPE_FLOAT, line, INVALID);
+            }
+        }
+    }
+
+    public float readFloat(String message) {
+        while (true) {
+            try {
+                prompt(message);
+                return Float.parseFloat(in.readLine());
+            } catch (IOException ioe) {
+                throw wrap(ioe);
+            }
+        }
+    }
+
+    public float readFloat(String message, Predicate<Float> predicate) {
+        for (int attempt = 1;; attempt++) {
+            checkAttempts(attempt);
+            String line = null;
+            try {
+                prompt(message);
+                line = readLine();
+                float value = Float.parseFloat(line);
+                if (predicate.test(value)) {
+                    return value;
+                }
+                showMessage(TYPE_FLOAT, line, PREDICATE_FAILED);
+            } catch (Exception e) {
+                if (e instanceof IOException) {
+                    throw wrap(e);
+                }
+                showMessage(TYPE_FLOAT, line, INVALID);
+            }
+        }
+    }
+
+    public int readInt() {
+        while (true) {
+            try {
+                return in.readLineInt();
+            } catch (IOException ioe) {
+                throw wrap(ioe);
+            }
+        }
+    }
+
+    public int readInt(Predicate<Integer> predicate) {
+        for (int attempt = 1;; attempt++) {
+            checkAttempts(attempt);
+            String line = null;
+            try {
+                line = readLine();
+                int value = Integer.parseInt(line);
+                if (predicate.test(value)) {
+                    return value;
+                }
+                showMessage(TYPE_INT, line, PREDICATE_FAILED);
+            } catch (Exception e) {
+                if (e instanceof IOException) {
+                    throw wrap(e);
+                }
+                showMessage(TYPE_INT, line, INVALID);
+            }
+        }
+    }
+
+    public int readInt(String message) {
+        while (true) {
+            try {
+                prompt(message);
+                return in.readLineInt();
+            } catch (IOException ioe) {
+                throw wrap(ioe);
+            }
+        }
+    }
+
+    public int readInt(String message, Predicate<Integer> predicate) {
+        for (int attempt = 1;; attempt++) {
+            checkAttempts(attempt);
+            String line = null;
+            try {
+                prompt(message);
+                line = readLine();
+                int value = Integer.parseInt(line);
+                if (predicate.test(value)) {
+                    return value;
+                }
+                showMessage(TYPE_INT, line, PREDICATE_FAILED);
+            } catch (Exception e) {
+                if (e instanceof IOException) {
+                    throw wrap(e);
+                }
+                showMessage(TYPE_INT, line, INVALID);
+            }
+        }
+    }
+
+    public int[] readIntArray(int count) {
+        try {
+            return in.nextIntArray(count);
+        } catch (IOException ioe) {
+            throw wrap(ioe);
+        }
+    }
+
+    public int[][] readIntMatrix(int rows, int columns) {
+        try {
+            return in.nextIntMatrix(rows, columns);
+        } catch (IOException ioe) {
+            throw wrap(ioe);
+        }
+    }
+
+    public long readLong() {
+        while (true) {
+            try {
+                return in.readLineLong();
+            } catch (IOException ioe) {
+                throw wrap(ioe);
+            }
+        }
+    }
+
+    public long readLong(Predicate<Long> predicate) {
+        for (int attempt = 1;; attempt++) {
+            checkAttempts(attempt);
+            String line = null;
+            try {
+                line = readLine();
+                long value = Long.parseLong(line);
+                if (predicate.test(value)) {
+                    return value;
+                }
+                showMessage(TYPE_LONG, line, PREDICATE_FAILED);
+            } catch (Exception e) {
+                if (e instanceof IOException) {
+                    throw wrap(e);
+                }
+                showMessage(TYPE_LONG, line, INVALID);
+            }
+        }
+    }
+
+    public long readLong(String message) {
+        while (true) {
+            try {
+                prompt(message);
+                return in.readLineLong();
+            } catch (IOException ioe) {
+                throw wrap(ioe);
+            }
+        }
+    }
+
+    public long readLong(String message, Predicate<Long> predicate) {
+        for (int attempt = 1;; attempt++) {
+            checkAttempts(attempt);
+            String line = null;
+            try {
+                prompt(message);
+                line = readLine();
+                long value = Long.parseLong(line);
+                if (predicate.test(value)) {
+                    return value;
+                }
+                showMessage(TYPE_LONG, line, PREDICATE_FAILED);
+            } catch (Exception e) {
+                if (e instanceof IOException) {
+                    throw wrap(e);
+                }
+                showMessage(TYPE_LONG, line, INVALID);
+            }
+        }
+    }
+
+    public long[] readLongArray(int count) {
+        try {
+            return in.nextLongArray(count);
+        } catch (IOException ioe) {
+            throw wrap(ioe);
+        }
+    }
+
+    public long[][] readLongMatrix(int rows, int columns) {
+        try {
+            return in.nextLongMatrix(rows, columns);
+        } catch (IOException ioe) {
+            throw wrap(ioe);
+        }
+    }
+
+    /**
+     * Lê o próximo registro delimitado, como uma linha de um arquivo CSV, direto para o registro informado, sem criar uma {@link String} por linha.
+     *
+     * @return <code>false</code> se o fim da entrada foi alcançado.
+     */
+    public boolean readRecord(DelimitedRecord record) {
+        try {
+            return in.readRecord(record);
+        } catch (IOException ioe) {
+            throw wrap(ioe);
+        }
+    }
+
+    public short readShort() {
+        while (true) {
+            try {
+                return Short.parseShort(in.readLine());
+            } catch (IOException ioe) {
+                throw wrap(ioe);
+            }
+        }
+    }
+
+    public short readShort(Predicate<Short> predicate) {
+        for (int attempt = 1;; attempt++) {
+            checkAttempts(attempt);
+            String line = null;
+            try {
+                line = readLine();
+                short value = Short.parseShort(line);
+                if (predicate.test(value)) {
+                    return value;
+                }
+                showMessage(TYPE_SHORT, line, PREDICATE_FAILED);
+            } catch (Exception e) {
+                if (e instanceof IOException) {
+                    throw wrap(e);
+                }
+                showMessage(TYPE_SHORT, line, INVALID);
+            }
+        }
+    }
+
+    public short readShort(String message) {
+        while (true) {
+            try {
+                prompt(message);
+                return Short.parseShort(in.readLine());
+            } catch (IOException ioe) {
+                throw wrap(ioe);
+            }
+        }
+    }
+
+    public short readShort(String message, Predicate<Short> predicate) {
+        for (int attempt = 1;; attempt++) {
+            checkAttempts(attempt);
+            String line = null;
+            try {
+                prompt(message);
+                line = readLine();
+                short value = Short.parseShort(line);
+                if (predicate.test(value)) {
+                    return value;
+                }
+                showMessage(TYPE_SHORT, line, PREDICATE_FAILED);
+            } catch (Exception e) {
+                if (e instanceof IOException) {
+                    throw wrap(e);
+                }
+                showMessage(TYPE_SHORT, line, INVALID);
+            }
+        }
+    }
+
+    public String readString() {
+        while (true) {
+            try {
+                return in.readLine();
+            } catch (IOException ioe) {
+                throw wrap(ioe);
+            }
+        }
+    }
+
+    public String readString(Predicate<String> predicate) {
+        for (int attempt = 1;; attempt++) {
+            checkAttempts(attempt);
+            String line = null;
+            try {
+                line = readLine();
+                if (predicate.test(line)) {
+                    return line;
+                }
+                showMessage(TYPE_STRING, line, PREDICATE_FAILED);
+            } catch (Exception e) {
+                if (e instanceof IOException) {
+                    throw wrap(e);
+                }
+                showMessage(TYPE_STRING, line, INVALID);
+            }
+        }
+    }
+
+    public String readString(String message) {
+        while (true) {
+            try {
+                prompt(message);
+                return in.readLine();
+            } catch (IOException ioe) {
+                throw wrap(ioe);
+            }
+        }
+    }
+
+    public String readString(String message, Predicate<String> predicate) {
+        for (int attempt = 1;; attempt++) {
+            checkAttempts(attempt);
+            String line = null;
+            try {
+                prompt(message);
+                line = readLine();
+                if (predicate.test(line)) {
+                    return line;
+                }
+                showMessage(TYPE_STRING, line, PREDICATE_FAILED);
+            } catch (Exception e) {
+                if (e instanceof IOException) {
+                    throw wrap(e);
+                }
+                showMessage(TYPE_STRING, line, INVALID);
+            }
+        }
+    }
+
+    public double readValidDouble(DoublePredicate predicate) {
+        for (int attempt = 1;; attempt++) {
+            checkAttempts(attempt);
+            String line = null;
+            try {
+                line = readLine();
+                double value = Double.parseDouble(line);
+                if (predicate.test(value)) {
+                    return value;
+                }
+                showMessage(TYPE_DOUBLE, line, PREDICATE_FAILED);
+            } catch (Exception e) {
+                if (e instanceof IOException) {
+                    throw wrap(e);
+                }
+                showMessage(TYPE_DOUBLE, line, INVALID);
+            }
+        }
+    }
+
+    public double readValidDouble(String message, DoublePredicate predicate) {
+        for (int attempt = 1;; attempt++) {
+            checkAttempts(attempt);
+            String line = null;
+            try {
+                prompt(message);
+                line = readLine();
+                double value = Double.parseDouble(line);
+                if (predicate.test(value)) {
+                    return value;
+                }
+                showMessage(TYPE_DOUBLE, line, PREDICATE_FAILED);
+            } catch (Exception e) {
+                if (e instanceof IOException) {
+                    throw wrap(e);
+                }
+                showMessage(TYPE_DOUBLE, line, INVALID);
+            }
+        }
+    }
+
+    public int readValidInt(IntPredicate predicate) {
+        for (int attempt = 1;; attempt++) {
+            checkAttempts(attempt);
+            String line = null;
+            try {
+                line = readLine();
+                int value = Integer.parseInt(line);
+                if (predicate.test(value)) {
+                    return value;
+                }
+                showMessage(TYPE_INT, line, PREDICATE_FAILED);
+            } catch (Exception e) {
+                if (e instanceof IOException) {
+                    throw wrap(e);
+                }
+                showMessage(TYPE_INT, line, INVALID);
+            }
+        }
+    }
+
+    public int readValidInt(String message, IntPredicate predicate) {
+        for (int attempt = 1;; attempt++) {
+            checkAttempts(attempt);
+            String line = null;
+            try {
+                prompt(message);
+                line = readLine();
+                int value = Integer.parseInt(line);
+                if (predicate.test(value)) {
+                    return value;
+                }
+                showMessage(TYPE_INT, line, PREDICATE_FAILED);
+            } catch (Exception e) {
+                if (e instanceof IOException) {
+                    throw wrap(e);
+                }
+                showMessage(TYPE_INT, line, INVALID);
+            }
+        }
+    }
+
+    public long readValidLong(LongPredicate predicate) {
+        for (int attempt = 1;; attempt++) {
+            checkAttempts(attempt);
+            String line = null;
+            try {
+                line = readLine();
+                long value = Long.parseLong(line);
+                if (predicate.test(value)) {
+                    return value;
+                }
+                showMessage(TYPE_LONG, line, PREDICATE_FAILED);
+            } catch (Exception e) {
+                if (e instanceof IOException) {
+                    throw wrap(e);
+                }
+                showMessage(TYPE_LONG, line, INVALID);
+            }
+        }
+    }
+
+    public long readValidLong(String message, LongPredicate predicate) {
+        for (int attempt = 1;; attempt++) {
+            checkAttempts(attempt);
+            String line = null;
+            try {
+                prompt(message);
+                line = readLine();
+                long value = Long.parseLong(line);
+                if (predicate.test(value)) {
+                    return value;
+                }
+                showMessage(TYPE_LONG, line, PREDICATE_FAILED);
+            } catch (Exception e) {
+                if (e instanceof IOException) {
+                    throw wrap(e);
+                }
+                showMessage(TYPE_LONG, line, INVALID);
+            }
+        }
+    }
+
+    /**
+     * Executa a leitura informada numa thread auxiliar, sem bloquear a thread chamadora.<br>
+     * As leituras assíncronas de uma mesma instância são executadas uma após a outra, na ordem em que foram agendadas.
+     *
+     * @param read
+     *            A leitura a ser executada, por exemplo <code>io -&gt; io.readInt()</code>.
+     * @return O future que é completado com o valor lido.
+     */
+    public synchronized <T> CompletableFuture<T> readAsync(Function<? super StreamIO, ? extends T> read) {
+        CompletableFuture<T> result = lastAsync.handleAsync((value, error) -> read.apply(this), ASYNC);
+        lastAsync = result;
+        return result;
+    }
+
+    /**
+     * Liga ou desliga o modo de saída em massa.<br>
+     * Neste modo os métodos <code>print</code> e <code>println</code> acumulam a saída num buffer, escrevendo os números direto como bytes, e só a
+     * repassam à saída quando o buffer enche, quando {@link #flush()} é chamado ou antes de ler uma entrada com mensagem.<br>
+     * Ao desligar o modo, a saída acumulada é descarregada.
+     */
+    public void setBulkOutput(boolean enabled) {
+        if (!enabled) {
+            flush();
+        }
+        bulkOutput = enabled;
+    }
+
+    /**
+     * Define quantas vezes as leituras com validação aceitam um valor inválido antes de desistir com uma {@link IllegalStateException}.
+     *
+     * @param maxAttempts
+     *            A quantidade máxima de tentativas, zero ou negativo para tentar indefinidamente, que é o padrão.
+     */
+    public void setMaxAttempts(int maxAttempts) {
+        this.maxAttempts = maxAttempts;
+    }
+
+    /**
+     * Define o tempo máximo que cada leitura espera por dados da entrada.<br>
+     * Quando o tempo se esgota a leitura falha com uma exceção causada por uma {@link java.io.InterruptedIOException}, liberando a thread, e os dados que
+     * chegarem depois são entregues na leitura seguinte.
+     *
+     * @param timeout
+     *            O tempo máximo, zero ou negativo para esperar indefinidamente, que é o padrão.
+     * @param unit
+     *            A unidade do tempo máximo.
+     */
+    public void setTimeout(long timeout, TimeUnit unit) {
+        input.setTimeout(timeout, unit);
+    }
+
+    private static PrintStream printStream(OutputStream out, Charset charset) {
+        if (out instanceof PrintStream) {
+            return (PrintStream) out;
+        }
+        try {
+            return new PrintStream(out, false, charset.name());
+        } catch (UnsupportedEncodingException e) {
+            throw wrap(e);
+        }
+    }
+
+    // desiste da leitura com validação quando as tentativas se esgotam
+    private void checkAttempts(int attempt) {
+        int max = maxAttempts;
+        if (max > 0 && attempt > max) {
+            throw new IllegalStateException("Nenhum valor válido foi informado em " + max + " tentativas!");
+        }
+    }
+
+    // saída para escrever fora do modo de saída em massa, antes a thread descarrega o que acumulou enquanto o modo estava ligado
+    private PrintStream direct() {
+        BulkWriter writer = pending.get();
+        if (writer != null) {
+            try {
+                writer.flush();
+            } catch (IOException ioe) {
+                throw wrap(ioe);
+            }
+        }
+        return out;
+    }
+
+    // exibe a mensagem de uma leitura, descarregando a saída para que ela apareça antes da leitura bloquear
+    private void prompt(String message) {
+        print(message);
+        if (bulkOutput) {
+            flush();
+        }
+    }
+
+    // lê uma linha para as leituras com validação, que não podem repetir indefinidamente quando a entrada termina
+    private String readLine() throws IOException {
+        String line = in.readLine();
+        if (line == null) {
+            throw new EOFException("A entrada terminou sem um valor válido!");
+        }
+        return line;
+    }
+
+    private void showMessage(String type, String value, String message) {
+        println("O valor \"" + value + "\" para o tipo " + type + " " + message);
+    }
+
+    private static RuntimeException wrap(Throwable t) {
+        if (t instanceof RuntimeException) {
+            return (RuntimeException) t;
+        }
+        return new RuntimeException(t.getLocalizedMessage(), t);
+    }
+}
@@ -0,0 +1,253 @@
+package br.com.staroski.io;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class splits a stream of lines in parts with a single pass over the stream, so it works with sources that cannot be read twice, such as the
+ * standard input, the output of a process or a decompression stream.<br>
+ * Unlike the {@link FileSplitter}, the total number of lines is not known up front, so the parts are limited by the number of lines
+ * ({@link #splitByLines(long)}) or by the size ({@link #splitBySize(long)}) of each part, and the number of parts depends on the stream.<br>
+ * Each line is written to the parts followed by the platform line separator. For charsets that encode the line breaks as single bytes, like UTF-8 and
+ * ISO-8859-1, the lines are copied as raw bytes, without decoding them.<br>
+ * The stream is read up to its end but is not closed.
+ *
+ * @author Ricardo Artur Staroski
+ */
+public final class StreamSplitter {
+
+    private final InputStream input;
+    private final Charset charset;
+    private File outputFolder;
+    private String partName = "part";
+
+    /**
+     * Creates a {@link StreamSplitter} for the given stream, with the platform default charset.
+     *
+     * @param input
+     *            The stream to be split.
+     */
+    public StreamSplitter(InputStream input) {
+        this(input, Charset.defaultCharset());
+    }
+
+    /**
+     * Creates a {@link StreamSplitter} for the given stream.
+     *
+     * @param input
+     *            The stream to be split.
+     *
+     * @param charset
+     *            The charset of the stream and of the part files.
+     */
+    public StreamSplitter(InputStream input, Charset charset) {
+        if (input == null || charset == null) {
+            throw new IllegalArgumentException("The 'input' and 'charset' parameters cannot be null");
+        }
+        this.input = input;
+        this.charset = charset;
+    }
+
+    /**
+     * Creates a {@link StreamSplitter} for the given channel.
+     *
+     * @param channel
+     *            The channel to be split.
+     *
+     * @param charset
+     *            The charset of the channel and of the part files.
+     */
+    public StreamSplitter(ReadableByteChannel channel, Charset charset) {
+        this(Channels.newInputStream(channel), charset);
+    }
+
+    /**
+     * Returns the output folder into where the parts will be generated.<br>
+     * By default it returns a {@link File} corresponding to <code>System.getProperty("user.dir")</code>.
+     *
+     * @return The output folder into where the parts will be generated.
+     */
+    public File getOutputFolder() {
+        if (outputFolder == null) {
+            outputFolder = new File(System.getProperty("user.dir"));
+        }
+        return outputFolder;
+    }
+
+    /**
+     * Sets the output folder into where the parts will be generated.
+     *
+     * @param directory
+     *            The output folder.
+     *
+     * @return This object itself, allowing enchained calls.
+     */
+    public StreamSplitter setOutputFolder(File directory) {
+        if (directory != null && directory.exists() && !directory.isDirectory()) {
+            throw new IllegalArgumentException("\"" + directory.getAbsolutePath() + "\" is not a directory");
+        }
+        this.outputFolder = directory;
+        return this;
+    }
+
+    /**
+     * Sets the name of the part files, which are named with it followed by the part number.<br>
+     * By default it is <code>"part"</code>.
+     *
+     * @param partName
+     *            The name of the part files.
+     *
+     * @return This object itself, allowing enchained calls.
+     */
+    public StreamSplitter setPartName(String partName) {
+        if (partName == null || partName.isEmpty()) {
+            throw new IllegalArgumentException("The 'partName' parameter cannot be empty");
+        }
+        this.partName = partName;
+        return this;
+    }
+
+    /**
+     * Splits the stream in parts with the given number of lines, the last part may have less lines.
+     *
+     * @param linesPerPart
+     *            The number of lines of each part.
+     *
+     * @return An array of {@link File} objects for each part, empty if the stream has no lines.
+     */
+    public File[] splitByLines(long linesPerPart) throws IOException {
+        if (linesPerPart < 1) {
+            throw new IllegalArgumentException("The 'linesPerPart' parameter must be positive");
+        }
+        return split(linesPerPart, Long.MAX_VALUE);
+    }
+
+    /**
+     * Splits the stream in parts of about the given size.<br>
+     * A part ends after the line that reaches the size, so the parts are never split in the middle of a line and may be a little larger.
+     *
+     * @param bytesPerPart
+     *            The size of each part.
+     *
+     * @return An array of {@link File} objects for each part, empty if the stream has no lines.
+     */
+    public File[] splitBySize(long bytesPerPart) throws IOException {
+        if (bytesPerPart < 1) {
+            throw new IllegalArgumentException("The 'bytesPerPart' parameter must be positive");
+        }
+        return split(Long.MAX_VALUE, bytesPerPart);
+    }
+
+    /**
+     * Creates the next part file.
+     *
+     * @param partFiles
+     *            The part files already created.
+     *
+     * @param expectedSize
+     *            The expected size of the part, or <code>0</code> if unknown.
+     *
+     * @return The stream to write the part.
+     */
+    private OutputStream nextPart(List<File> partFiles, long expectedSize) throws IOException {
+        File folder = getOutputFolder();
+        folder.mkdirs(); // ensure that the output directory tree exists
+        File partFile = new File(folder, partName + partFiles.size());
+        partFiles.add(partFile);
+        return new PartOutputStream(partFile, expectedSize, IO.BLOCK_SIZE, 0);
+    }
+
+    /**
+     * Splits the stream ending each part when it reaches one of the limits.
+     *
+     * @param maxLines
+     *            The maximum number of lines of a part.
+     *
+     * @param maxBytes
+     *            The size after which a part ends.
+     *
+     * @return An array of {@link File} objects for each part.
+     */
+    private File[] split(long maxLines, long maxBytes) throws IOException {
+        List<File> partFiles = new ArrayList<>();
+        long expectedSize = maxBytes == Long.MAX_VALUE ? 0 : maxBytes;
+        if (!ByteLineReader.isLineTransparent(charset)) {
+            splitChars(partFiles, maxLines, maxBytes, expectedSize);
+            return partFiles.toArray(new File[partFiles.size()]);
+        }
+        final byte[] separator = System.lineSeparator().getBytes(charset);
+        ByteLineReader reader = new ByteLineReader(input, IO.BLOCK_SIZE); // not closed, the stream belongs to the caller
+        OutputStream output = null;
+        long lines = 0;
+        long bytes = 0;
+        try {
+            while (reader.next()) {
+                if (output == null) { // there is content for a new part
+                    output = nextPart(partFiles, expectedSize);
+                    lines = 0;
+                    bytes = 0;
+                }
+                output.write(reader.buffer(), reader.start(), reader.length()); // copy the bytes of the line
+                output.write(separator);
+                lines++;
+                bytes += reader.length() + separator.length;
+                if (lines >= maxLines || bytes >= maxBytes) {
+                    output.close(); // close the current part file
+                    output = null; // the next part is only started if there are more lines
+                }
+            }
+        } finally {
+            if (output != null) {
+                output.close(); // close the current part file
+            }
+        }
+        return partFiles.toArray(new File[partFiles.size()]);
+    }
+
+    /**
+     * Splits the stream decoding and encoding the lines, for charsets whose line breaks are not single bytes.<br>
+     * The size of the parts is estimated from the number of characters and the average number of bytes per character of the charset.
+     */
+    private void splitChars(List<File> partFiles, long maxLines, long maxBytes, long expectedSize) throws IOException {
+        final String separator = System.lineSeparator();
+        final double bytesPerChar = charset.newEncoder().averageBytesPerChar();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, charset), IO.BLOCK_SIZE); // not closed, the stream belongs to the caller
+        Writer writer = null;
+        long lines = 0;
+        double bytes = 0;
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (writer == null) { // there is content for a new part
+                    writer = new BufferedWriter(new OutputStreamWriter(nextPart(partFiles, expectedSize), charset), IO.BLOCK_SIZE);
+                    lines = 0;
+                    bytes = 0;
+                }
+                writer.write(line);
+                writer.write(separator);
+                lines++;
+                bytes += (line.length() + separator.length()) * bytesPerChar;
+                if (lines >= maxLines || bytes >= maxBytes) {
+                    writer.close(); // close the current part file
+                    writer = null; // the next part is only started if there are more lines
+                }
+            }
+        } finally {
+            if (writer != null) {
+                writer.close(); // close the current part file
+            }
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package br.com.staroski.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * {@link InputStream} cujas leituras desistem de esperar após um tempo limite, lançando uma {@link InterruptedIOException}.<br>
+ * Como uma leitura bloqueada não pode ser cancelada, ela é feita por uma thread auxiliar e os bytes que ela obtiver depois do tempo limite são entregues
+ * na leitura seguinte, nada é perdido.<br>
+ * Sem tempo limite, as leituras são repassadas direto ao stream original.
+ */
+final class TimeoutInputStream extends InputStream {
+
+    private final InputStream input;
+    private volatile long timeoutNanos;
+    private ExecutorService reader;
+
+    // leitura em andamento na thread auxiliar e os bytes que ela obteve
+    private Future<Integer> pending;
+    private final byte[] chunk = new byte[IO.BLOCK_SIZE];
+    private int chunkPosition;
+    private int chunkLimit;
+
+    TimeoutInputStream(InputStream input) {
+        this.input = input;
+    }
+
+    @Override
+    public int available() throws IOException {
+        return chunkLimit - chunkPosition + (pending == null ? input.available() : 0);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (reader != null) {
+            reader.shutdownNow();
+        }
+        input.close();
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] b = new byte[1];
+        return read(b, 0, 1) < 0 ? -1 : b[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        if (chunkPosition < chunkLimit) {
+            return copy(bytes, offset, length);
+        }
+        long timeout = timeoutNanos;
+        if (pending == null && (timeout <= 0 || input.available() > 0)) {
+            return input.read(bytes, offset, length); // não vai bloquear ou não há tempo limite
+        }
+        if (pending == null) {
+            if (reader == null) {
+                reader = Executors.newSingleThreadExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "TimeoutInputStream");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            }
+            pending = reader.submit(() -> input.read(chunk, 0, chunk.length));
+        }
+        int read;
+        try {
+            read = timeout <= 0 ? pending.get() : pending.get(timeout, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            throw new InterruptedIOException("Nenhum dado recebido em " + TimeUnit.NANOSECONDS.toMillis(timeout) + "ms");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(e.getLocalizedMessage());
+        } catch (ExecutionException e) {
+            pending = null;
+            Throwable cause = e.getCause();
+            throw cause instanceof IOException ? (IOException) cause : new IOException(cause);
+        }
+        pending = null;
+        if (read <= 0) {
+            return read;
+        }
+        chunkPosition = 0;
+        chunkLimit = read;
+        return copy(bytes, offset, length);
+    }
+
+    /**
+     * Define o tempo limite de cada leitura.
+     *
+     * @param timeout
+     *            O tempo limite, zero ou negativo para esperar indefinidamente.
+     * @param unit
+     *            A unidade do tempo limite.
+     */
+    void setTimeout(long timeout, TimeUnit unit) {
+        timeoutNanos = unit.toNanos(timeout);
+    }
+
+    private int copy(byte[] bytes, int offset, int length) {
+        int count = Math.min(length, chunkLimit - chunkPosition);
+        System.arraycopy(chunk, chunkPosition, bytes, offset, count);
+        chunkPosition += count;
+        return count;
+    }
+}
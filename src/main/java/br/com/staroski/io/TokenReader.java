@@ -0,0 +1,428 @@
+package br.com.staroski.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.NoSuchElementException;
+
+/**
+ * Leitor de tokens e linhas que trabalha direto sobre os bytes de um {@link InputStream}.<br>
+ * Os tokens são separados por espaços em branco (qualquer byte menor ou igual a <code>' '</code>) e podem estar vários numa mesma linha.<br>
+ * Os métodos {@link #nextInt()}, {@link #nextLong()} e {@link #nextDouble()} convertem os números direto dos bytes do buffer, sem criar objetos por token, usando o {@link Numbers}.<br>
+ * O charset informado precisa codificar as quebras de linha e os espaços como bytes ASCII, o que vale para UTF-8, ISO-8859-1 e afins.
+ */
+public final class TokenReader implements Closeable {
+
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private final InputStream input;
+    private final Charset charset;
+    private byte[] buffer;
+    private int position;
+    private int limit;
+
+    // início do token ou linha sendo lido, preservado quando o buffer é recarregado
+    private int mark;
+
+    // a última linha terminou com '\r', então um '\n' logo em seguida faz parte da mesma quebra de linha
+    private boolean skipLineFeed;
+
+    public TokenReader(InputStream input) {
+        this(input, Charset.defaultCharset());
+    }
+
+    public TokenReader(InputStream input, Charset charset) {
+        this(input, charset, DEFAULT_BUFFER_SIZE);
+    }
+
+    public TokenReader(InputStream input, Charset charset, int bufferSize) {
+        this.input = input;
+        this.charset = charset;
+        this.buffer = new byte[Math.max(bufferSize, 16)];
+    }
+
+    @Override
+    public void close() throws IOException {
+        input.close();
+    }
+
+    /**
+     * Verifica se ainda há algum token a ser lido, descartando os espaços em branco que o antecedem.
+     */
+    public boolean hasNext() throws IOException {
+        consumeLineFeed();
+        mark = position;
+        while (true) {
+            if (position >= limit && !fill()) {
+                return false;
+            }
+            if ((buffer[position] & 0xFF) > ' ') {
+                return true;
+            }
+            mark = ++position;
+        }
+    }
+
+    /**
+     * Lê o próximo token.
+     *
+     * @throws NoSuchElementException
+     *             se não houver mais tokens.
+     */
+    public String next() throws IOException {
+        int length = token();
+        return new String(buffer, mark, length, charset);
+    }
+
+    /**
+     * Lê o próximo token como um <code>double</code>.
+     *
+     * @throws NoSuchElementException
+     *             se não houver mais tokens.
+     * @throws NumberFormatException
+     *             se o token não for um número válido.
+     */
+    public double nextDouble() throws IOException {
+        int length = token();
+        try {
+            return Numbers.parseDouble(buffer, mark, mark + length);
+        } catch (NumberFormatException e) {
+            throw invalid(length);
+        }
+    }
+
+    /**
+     * Lê os próximos <code>count</code> tokens como <code>double</code>s.
+     *
+     * @throws NoSuchElementException
+     *             se não houver tokens suficientes.
+     * @throws NumberFormatException
+     *             se algum token não for um número válido.
+     */
+    public double[] nextDoubleArray(int count) throws IOException {
+        double[] values = new double[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = nextDouble();
+        }
+        return values;
+    }
+
+    /**
+     * Lê os próximos <code>rows * columns</code> tokens como uma matriz de <code>double</code>s, linha a linha.
+     *
+     * @throws NoSuchElementException
+     *             se não houver tokens suficientes.
+     * @throws NumberFormatException
+     *             se algum token não for um número válido.
+     */
+    public double[][] nextDoubleMatrix(int rows, int columns) throws IOException {
+        double[][] values = new double[rows][];
+        for (int row = 0; row < rows; row++) {
+            values[row] = nextDoubleArray(columns);
+        }
+        return values;
+    }
+
+    /**
+     * Lê o próximo token como um <code>int</code>.
+     *
+     * @throws NoSuchElementException
+     *             se não houver mais tokens.
+     * @throws NumberFormatException
+     *             se o token não for um número válido.
+     */
+    public int nextInt() throws IOException {
+        int length = token();
+        try {
+            return Numbers.parseInt(buffer, mark, mark + length);
+        } catch (NumberFormatException e) {
+            throw invalid(length);
+        }
+    }
+
+    /**
+     * Lê os próximos <code>count</code> tokens como <code>int</code>s.
+     *
+     * @throws NoSuchElementException
+     *             se não houver tokens suficientes.
+     * @throws NumberFormatException
+     *             se algum token não for um número válido.
+     */
+    public int[] nextIntArray(int count) throws IOException {
+        int[] values = new int[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = nextInt();
+        }
+        return values;
+    }
+
+    /**
+     * Lê os próximos <code>rows * columns</code> tokens como uma matriz de <code>int</code>s, linha a linha.
+     *
+     * @throws NoSuchElementException
+     *             se não houver tokens suficientes.
+     * @throws NumberFormatException
+     *             se algum token não for um número válido.
+     */
+    public int[][] nextIntMatrix(int rows, int columns) throws IOException {
+        int[][] values = new int[rows][];
+        for (int row = 0; row < rows; row++) {
+            values[row] = nextIntArray(columns);
+        }
+        return values;
+    }
+
+    /**
+     * Lê o próximo token como um <code>long</code>.
+     *
+     * @throws NoSuchElementException
+     *             se não houver mais tokens.
+     * @throws NumberFormatException
+     *             se o token não for um número válido.
+     */
+    public long nextLong() throws IOException {
+        int length = token();
+        try {
+            return Numbers.parseLong(buffer, mark, mark + length);
+        } catch (NumberFormatException e) {
+            throw invalid(length);
+        }
+    }
+
+    /**
+     * Lê os próximos <code>count</code> tokens como <code>long</code>s.
+     *
+     * @throws NoSuchElementException
+     *             se não houver tokens suficientes.
+     * @throws NumberFormatException
+     *             se algum token não for um número válido.
+     */
+    public long[] nextLongArray(int count) throws IOException {
+        long[] values = new long[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = nextLong();
+        }
+        return values;
+    }
+
+    /**
+     * Lê os próximos <code>rows * columns</code> tokens como uma matriz de <code>long</code>s, linha a linha.
+     *
+     * @throws NoSuchElementException
+     *             se não houver tokens suficientes.
+     * @throws NumberFormatException
+     *             se algum token não for um número válido.
+     */
+    public long[][] nextLongMatrix(int rows, int columns) throws IOException {
+        long[][] values = new long[rows][];
+        for (int row = 0; row < rows; row++) {
+            values[row] = nextLongArray(columns);
+        }
+        return values;
+    }
+
+    /**
+     * Carrega para a memória todo o restante do stream, de uma só vez.<br>
+     * Útil para entradas muito grandes, pois as leituras seguintes não precisam mais recarregar o buffer.<br>
+     * Quando o stream informa quantos bytes restam, como ao redirecionar um arquivo para a entrada padrão, o buffer é alocado uma única vez com esse
+     * tamanho.
+     */
+    public TokenReader preload() throws IOException {
+        mark = position;
+        long remaining = input.available();
+        if (remaining > 0 && limit - mark + remaining < Integer.MAX_VALUE - 8) {
+            int size = (int) (limit - mark + remaining) + 1;
+            if (size > buffer.length) {
+                byte[] larger = new byte[size];
+                System.arraycopy(buffer, mark, larger, 0, limit - mark);
+                position -= mark;
+                limit -= mark;
+                mark = 0;
+                buffer = larger;
+            }
+        }
+        while (fill()) {
+            // lê até o fim do stream
+        }
+        return this;
+    }
+
+    /**
+     * Lê o restante da linha atual, sem a quebra de linha.<br>
+     * Após a leitura de tokens, o restante da linha do último token é retornado.
+     *
+     * @return A linha lida ou <code>null</code> se o fim do stream foi alcançado.
+     */
+    public String readLine() throws IOException {
+        int length = line();
+        return length < 0 ? null : new String(buffer, mark, length, charset);
+    }
+
+    /**
+     * Lê o restante do registro atual direto para o registro informado, sem criar uma {@link String}.<br>
+     * Quebras de linha entre aspas fazem parte do registro.
+     *
+     * @return <code>false</code> se o fim do stream foi alcançado.
+     */
+    public boolean readRecord(DelimitedRecord record) throws IOException {
+        consumeLineFeed();
+        mark = position;
+        while (true) {
+            // o registro localiza os seus campos e o seu fim num único passo, e é localizado de novo desde o início se o buffer precisar ser recarregado
+            int end = position < limit ? record.read(buffer, mark, limit, false, charset) : -1;
+            if (end < 0) {
+                position = limit;
+                if (fill()) {
+                    continue;
+                }
+                if (position == mark) {
+                    return false;
+                }
+                end = record.read(buffer, mark, limit, true, charset);
+            }
+            position = end;
+            if (position < limit) {
+                skipLineFeed = buffer[position++] == '\r';
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Retorna o texto do último token lido, usado para reportar um token inválido.
+     */
+    String lastToken() {
+        return new String(buffer, mark, position - mark, charset);
+    }
+
+    /**
+     * Lê a próxima linha como um <code>double</code>, aceitando o mesmo que {@link Double#parseDouble(String)} mas sem criar uma {@link String} nos
+     * casos comuns.
+     */
+    double readLineDouble() throws IOException {
+        int length = line();
+        if (length > 0) {
+            try {
+                return Numbers.parseDouble(buffer, mark, mark + length);
+            } catch (NumberFormatException e) {
+                // o Double.parseDouble abaixo reporta o erro com o texto decodificado pelo charset
+            }
+        }
+        return Double.parseDouble(length < 0 ? null : new String(buffer, mark, length, charset));
+    }
+
+    /**
+     * Lê a próxima linha como um <code>int</code>, aceitando o mesmo que {@link Integer#parseInt(String)} mas sem criar uma {@link String} nos casos
+     * comuns.
+     */
+    int readLineInt() throws IOException {
+        int length = line();
+        if (length > 0) {
+            try {
+                return Numbers.parseInt(buffer, mark, mark + length);
+            } catch (NumberFormatException e) {
+                // o Integer.parseInt abaixo aceita dígitos não ASCII e reporta o erro com o texto decodificado pelo charset
+            }
+        }
+        return Integer.parseInt(length < 0 ? null : new String(buffer, mark, length, charset));
+    }
+
+    /**
+     * Lê a próxima linha como um <code>long</code>, aceitando o mesmo que {@link Long#parseLong(String)} mas sem criar uma {@link String} nos casos
+     * comuns.
+     */
+    long readLineLong() throws IOException {
+        int length = line();
+        if (length > 0) {
+            try {
+                return Numbers.parseLong(buffer, mark, mark + length);
+            } catch (NumberFormatException e) {
+                // o Long.parseLong abaixo aceita dígitos não ASCII e reporta o erro com o texto decodificado pelo charset
+            }
+        }
+        return Long.parseLong(length < 0 ? null : new String(buffer, mark, length, charset));
+    }
+
+    // descarta o '\n' que completa um "\r\n" cuja primeira metade terminou a linha anterior
+    private void consumeLineFeed() throws IOException {
+        if (skipLineFeed) {
+            skipLineFeed = false;
+            mark = position;
+            if ((position < limit || fill()) && buffer[position] == '\n') {
+                position++;
+            }
+        }
+    }
+
+    // lê mais bytes preservando o conteúdo a partir de mark, retorna false se o fim do stream foi alcançado
+    private boolean fill() throws IOException {
+        if (mark > 0) {
+            System.arraycopy(buffer, mark, buffer, 0, limit - mark);
+            position -= mark;
+            limit -= mark;
+            mark = 0;
+        }
+        if (limit == buffer.length) {
+            byte[] larger = new byte[buffer.length * 2];
+            System.arraycopy(buffer, 0, larger, 0, limit);
+            buffer = larger;
+        }
+        int read;
+        try {
+            do {
+                read = input.read(buffer, limit, buffer.length - limit);
+            } while (read == 0);
+        } catch (IOException e) {
+            position = mark; // o token ou linha interrompido será lido desde o início na próxima chamada
+            throw e;
+        }
+        if (read < 0) {
+            return false;
+        }
+        limit += read;
+        return true;
+    }
+
+    // localiza a próxima linha, que começa em mark, e retorna o seu tamanho ou -1 se o fim do stream foi alcançado
+    private int line() throws IOException {
+        consumeLineFeed();
+        mark = position;
+        while (true) {
+            if (position >= limit && !fill()) {
+                return position > mark ? position - mark : -1;
+            }
+            byte b = buffer[position];
+            if (b == '\n' || b == '\r') {
+                int length = position - mark;
+                position++;
+                skipLineFeed = b == '\r';
+                return length;
+            }
+            position++;
+        }
+    }
+
+    private NumberFormatException invalid(int length) {
+        return new NumberFormatException("For input string: \"" + new String(buffer, mark, length, charset) + "\"");
+    }
+
+    // localiza o próximo token, que começa em mark, e retorna o seu tamanho
+    private int token() throws IOException {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        while (true) {
+            if (position >= limit) {
+                if (!fill()) {
+                    break;
+                }
+            } else if ((buffer[position] & 0xFF) <= ' ') {
+                break;
+            } else {
+                position++;
+            }
+        }
+        return position - mark;
+    }
+}
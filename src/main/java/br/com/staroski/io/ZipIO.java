@@ -0,0 +1,540 @@
+package br.com.staroski.io;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+
+/**
+ * Classe utilitária para criar e extrair arquivos ZIP usando todos os processadores.<br>
+ * Na criação, cada arquivo é dividido em pedaços de {@link #CHUNK_SIZE} bytes, comprimidos em paralelo como blocos <i>deflate</i> independentes, que
+ * usam os últimos 32KB do pedaço anterior como dicionário e são concatenados num único fluxo <i>deflate</i> por arquivo, então a compressão é quase a
+ * mesma de um {@link java.util.zip.ZipOutputStream}. O ZIP é montado diretamente, com os CRCs e tamanhos corretos nos cabeçalhos e no diretório
+ * central, e usa as extensões ZIP64 quando algum arquivo, o próprio ZIP ou a quantidade de arquivos passa dos limites do formato original.<br>
+ * Na extração, os arquivos são extraídos em paralelo, dos maiores para os menores, e os nomes que sairiam da pasta de destino (<i>zip slip</i>) são
+ * rejeitados.
+ */
+public final class ZipIO {
+
+    /**
+     * Tamanho, 1MB, dos pedaços dos arquivos que são comprimidos em paralelo.
+     */
+    public static final int CHUNK_SIZE = 1024 * 1024;
+
+    private static final int DICTIONARY_SIZE = 32 * 1024;
+    private static final long LIMIT = 0xFFFFFFFFL;
+    private static final int MAX_ENTRIES = 0xFFFF;
+
+    // folga para a expansão da compressão de dados incompressíveis, acima dela o cabeçalho local já é escrito com ZIP64
+    private static final long ZIP64_MARGIN = 16 * 1024 * 1024;
+
+    private static final int LOCAL_HEADER = 0x04034b50;
+    private static final int CENTRAL_HEADER = 0x02014b50;
+    private static final int END_HEADER = 0x06054b50;
+    private static final int ZIP64_END_HEADER = 0x06064b50;
+    private static final int ZIP64_LOCATOR = 0x07064b50;
+    private static final short ZIP64_EXTRA = 0x0001;
+    private static final short UTF8_FLAG = 0x0800;
+    private static final short STORED = 0;
+    private static final short DEFLATED = 8;
+
+    // o ZIP sendo montado
+    private static final class Archive {
+
+        private final FileChannel channel;
+        private final ExecutorService pool;
+        private final int level;
+        private final int window;
+        private final List<Entry> entries = new ArrayList<Entry>();
+        private final ArrayDeque<Piece> pending = new ArrayDeque<Piece>();
+        private final ByteBuffer staging = ByteBuffer.allocate(64 * 1024).order(ByteOrder.LITTLE_ENDIAN);
+        private long position;
+
+        Archive(FileChannel channel, ExecutorService pool, int level, int threads) {
+            this.channel = channel;
+            this.pool = pool;
+            this.level = level;
+            this.window = threads * 2;
+        }
+
+        // lê o arquivo em pedaços e os envia para a compressão, o CRC é calculado durante a leitura
+        void add(File file, String name) throws IOException {
+            Entry entry = new Entry(name, file.isDirectory(), file.lastModified(), file.length());
+            entries.add(entry);
+            if (entry.directory) {
+                queue(new Piece(entry, null, true, true));
+                return;
+            }
+            CRC32 crc = new CRC32();
+            try (InputStream input = new FileInputStream(file)) {
+                byte[] previous = null;
+                byte[] current = new byte[CHUNK_SIZE];
+                int length = readFully(input, current);
+                for (boolean first = true;; first = false) {
+                    byte[] next = null;
+                    int nextLength = 0;
+                    if (length == CHUNK_SIZE) { // só é o último pedaço se não houver mais nada para ler
+                        next = new byte[CHUNK_SIZE];
+                        nextLength = readFully(input, next);
+                    }
+                    boolean last = nextLength == 0;
+                    crc.update(current, 0, length);
+                    entry.size += length;
+                    if (last) {
+                        entry.crc = crc.getValue();
+                    }
+                    queue(new Piece(entry, pool.submit(deflate(current, length, previous, last, level)), first, last));
+                    if (last) {
+                        return;
+                    }
+                    previous = current;
+                    current = next;
+                    length = nextLength;
+                }
+            }
+        }
+
+        // escreve os pedaços pendentes e o diretório central
+        void finish() throws IOException {
+            while (!pending.isEmpty()) {
+                write(pending.poll());
+            }
+            long start = position;
+            for (Entry entry : entries) {
+                append(centralHeader(entry));
+            }
+            long size = position - start;
+            long count = entries.size();
+            if (count >= MAX_ENTRIES || size >= LIMIT || start >= LIMIT) {
+                ByteBuffer end = buffer(56 + 20);
+                end.putInt(ZIP64_END_HEADER).putLong(44).putShort((short) 45).putShort((short) 45).putInt(0).putInt(0);
+                end.putLong(count).putLong(count).putLong(size).putLong(start);
+                end.putInt(ZIP64_LOCATOR).putInt(0).putLong(position).putInt(1);
+                append(end);
+            }
+            ByteBuffer end = buffer(22);
+            end.putInt(END_HEADER).putShort((short) 0).putShort((short) 0);
+            end.putShort((short) Math.min(count, MAX_ENTRIES)).putShort((short) Math.min(count, MAX_ENTRIES));
+            end.putInt((int) Math.min(size, LIMIT)).putInt((int) Math.min(start, LIMIT)).putShort((short) 0);
+            append(end);
+            flush();
+            channel.truncate(position);
+        }
+
+        // acrescenta os bytes ao buffer de escrita
+        private void append(byte[] bytes) throws IOException {
+            ByteBuffer wrapped = ByteBuffer.wrap(bytes);
+            ((Buffer) wrapped).position(bytes.length);
+            append(wrapped);
+        }
+
+        // acrescenta os bytes já colocados no buffer ao buffer de escrita
+        private void append(ByteBuffer bytes) throws IOException {
+            ((Buffer) bytes).flip();
+            if (bytes.remaining() > staging.remaining()) {
+                flush();
+            }
+            position += bytes.remaining();
+            if (bytes.remaining() > staging.capacity()) {
+                writeFully(bytes, position - bytes.remaining());
+            } else {
+                staging.put(bytes);
+            }
+        }
+
+        private ByteBuffer centralHeader(Entry entry) {
+            int fields = (entry.size >= LIMIT ? 1 : 0) + (entry.compressedSize >= LIMIT ? 1 : 0) + (entry.offset >= LIMIT ? 1 : 0);
+            int extra = fields == 0 ? 0 : 4 + 8 * fields;
+            ByteBuffer header = buffer(46 + entry.name.length + extra);
+            header.putInt(CENTRAL_HEADER).putShort((short) 45).putShort(version(entry, fields > 0)).putShort(UTF8_FLAG).putShort(entry.method());
+            header.putInt(entry.time).putInt((int) entry.crc);
+            header.putInt((int) Math.min(entry.compressedSize, LIMIT)).putInt((int) Math.min(entry.size, LIMIT));
+            header.putShort((short) entry.name.length).putShort((short) extra).putShort((short) 0).putShort((short) 0).putShort((short) 0);
+            header.putInt(entry.directory ? 0x10 : 0).putInt((int) Math.min(entry.offset, LIMIT)).put(entry.name);
+            if (fields > 0) {
+                header.putShort(ZIP64_EXTRA).putShort((short) (8 * fields));
+                if (entry.size >= LIMIT) {
+                    header.putLong(entry.size);
+                }
+                if (entry.compressedSize >= LIMIT) {
+                    header.putLong(entry.compressedSize);
+                }
+                if (entry.offset >= LIMIT) {
+                    header.putLong(entry.offset);
+                }
+            }
+            return header;
+        }
+
+        // grava no arquivo o conteúdo do buffer de escrita
+        private void flush() throws IOException {
+            ((Buffer) staging).flip();
+            writeFully(staging, position - staging.remaining());
+            ((Buffer) staging).clear();
+        }
+
+        // cabeçalho local, com o CRC e os tamanhos apenas quando já são conhecidos
+        private ByteBuffer localHeader(Entry entry, boolean complete) {
+            ByteBuffer header = buffer(30 + entry.name.length + (entry.zip64 ? 20 : 0));
+            header.putInt(LOCAL_HEADER).putShort(version(entry, entry.zip64)).putShort(UTF8_FLAG).putShort(entry.method());
+            header.putInt(entry.time).putInt(complete ? (int) entry.crc : 0);
+            if (entry.zip64) {
+                header.putInt(-1).putInt(-1);
+            } else {
+                header.putInt(complete ? (int) entry.compressedSize : 0).putInt(complete ? (int) entry.size : 0);
+            }
+            header.putShort((short) entry.name.length).putShort((short) (entry.zip64 ? 20 : 0)).put(entry.name);
+            if (entry.zip64) {
+                header.putShort(ZIP64_EXTRA).putShort((short) 16).putLong(complete ? entry.size : 0).putLong(complete ? entry.compressedSize : 0);
+            }
+            return header;
+        }
+
+        // preenche o CRC e os tamanhos no cabeçalho local já gravado
+        private void patch(Entry entry) throws IOException {
+            if (!entry.zip64 && (entry.size >= LIMIT || entry.compressedSize >= LIMIT)) {
+                throw new ZipException("O arquivo " + new String(entry.name, StandardCharsets.UTF_8) + " cresceu durante a compressão");
+            }
+            flush();
+            ByteBuffer values = buffer(12);
+            values.putInt((int) entry.crc);
+            if (entry.zip64) {
+                values.putInt(-1).putInt(-1);
+            } else {
+                values.putInt((int) entry.compressedSize).putInt((int) entry.size);
+            }
+            ((Buffer) values).flip();
+            writeFully(values, entry.offset + 14);
+            if (entry.zip64) {
+                ByteBuffer sizes = buffer(16);
+                sizes.putLong(entry.size).putLong(entry.compressedSize);
+                ((Buffer) sizes).flip();
+                writeFully(sizes, entry.offset + 30 + entry.name.length + 4);
+            }
+        }
+
+        // envia o pedaço para a fila, escrevendo os mais antigos quando há pedaços demais em memória
+        private void queue(Piece piece) throws IOException {
+            pending.add(piece);
+            while (pending.size() > window) {
+                write(pending.poll());
+            }
+        }
+
+        // escreve um pedaço comprimido, na ordem em que os pedaços foram lidos
+        private void write(Piece piece) throws IOException {
+            Entry entry = piece.entry;
+            byte[] data = piece.data == null ? new byte[0] : get(piece.data);
+            if (piece.first) {
+                entry.offset = position;
+            }
+            entry.compressedSize += data.length;
+            if (piece.first && piece.last) { // arquivo de um único pedaço, o cabeçalho já sai completo
+                append(localHeader(entry, true));
+                append(data);
+                return;
+            }
+            if (piece.first) {
+                append(localHeader(entry, false));
+            }
+            append(data);
+            if (piece.last) {
+                patch(entry);
+            }
+        }
+
+        private void writeFully(ByteBuffer bytes, long at) throws IOException {
+            while (bytes.hasRemaining()) {
+                at += channel.write(bytes, at);
+            }
+        }
+    }
+
+    // um arquivo ou pasta do ZIP
+    private static final class Entry {
+
+        final byte[] name;
+        final boolean directory;
+        final int time;
+        final boolean zip64;
+        long crc;
+        long size;
+        long compressedSize;
+        long offset;
+
+        Entry(String name, boolean directory, long lastModified, long length) {
+            this.name = name.getBytes(StandardCharsets.UTF_8);
+            this.directory = directory;
+            this.time = dosTime(lastModified);
+            this.zip64 = !directory && length >= LIMIT - ZIP64_MARGIN;
+        }
+
+        short method() {
+            return directory ? STORED : DEFLATED;
+        }
+    }
+
+    // um pedaço comprimido de um arquivo
+    private static final class Piece {
+
+        final Entry entry;
+        final Future<byte[]> data;
+        final boolean first;
+        final boolean last;
+
+        Piece(Entry entry, Future<byte[]> data, boolean first, boolean last) {
+            this.entry = entry;
+            this.data = data;
+            this.first = first;
+            this.last = last;
+        }
+    }
+
+    /**
+     * Extrai o arquivo ZIP informado para a pasta informada, com uma thread por processador.
+     *
+     * @see #unzip(File, File, int)
+     */
+    public static void unzip(File zipFile, File folder) throws IOException {
+        unzip(zipFile, folder, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Extrai o arquivo ZIP informado para a pasta informada.<br>
+     * Os arquivos são extraídos em paralelo, cada um lido e descomprimido como um stream, começando pelos maiores. Os arquivos já existentes são
+     * substituídos.
+     *
+     * @param zipFile
+     *            O arquivo ZIP.
+     * @param folder
+     *            A pasta de destino.
+     * @param threads
+     *            A quantidade de arquivos extraídos ao mesmo tempo.
+     * @throws ZipException
+     *             se o nome de algum arquivo do ZIP apontar para fora da pasta de destino.
+     */
+    public static void unzip(File zipFile, File folder, int threads) throws IOException {
+        if (threads < 1) {
+            throw new IllegalArgumentException("A quantidade de threads precisa ser positiva: " + threads);
+        }
+        final Path root = folder.getAbsoluteFile().toPath().normalize();
+        try (final ZipFile zip = new ZipFile(zipFile)) {
+            List<ZipEntry> files = new ArrayList<ZipEntry>();
+            for (Enumeration<? extends ZipEntry> entries = zip.entries(); entries.hasMoreElements();) {
+                ZipEntry entry = entries.nextElement();
+                Path target = resolve(root, entry);
+                if (entry.isDirectory()) {
+                    Files.createDirectories(target);
+                } else {
+                    files.add(entry);
+                }
+            }
+            // os maiores primeiro, para que os pequenos preencham as threads livres no final
+            Collections.sort(files, Comparator.comparingLong((ZipEntry entry) -> entry.getSize()).reversed());
+            ExecutorService pool = Executors.newFixedThreadPool(Math.min(threads, Math.max(files.size(), 1)));
+            try {
+                List<Future<?>> results = new ArrayList<Future<?>>(files.size());
+                for (final ZipEntry entry : files) {
+                    results.add(pool.submit((Callable<Void>) () -> {
+                        Path target = resolve(root, entry);
+                        Files.createDirectories(target.getParent());
+                        try (InputStream input = zip.getInputStream(entry)) {
+                            Files.copy(input, target, StandardCopyOption.REPLACE_EXISTING);
+                        }
+                        if (entry.getTime() != -1) {
+                            target.toFile().setLastModified(entry.getTime());
+                        }
+                        return null;
+                    }));
+                }
+                for (Future<?> result : results) {
+                    get(result);
+                }
+            } finally {
+                pool.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * Comprime o arquivo ou pasta informado, com a compressão padrão e uma thread por processador.
+     *
+     * @see #zip(File, File, int, int)
+     */
+    public static void zip(File source, File zipFile) throws IOException {
+        zip(source, zipFile, Deflater.DEFAULT_COMPRESSION, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Comprime o arquivo ou pasta informado num arquivo ZIP.<br>
+     * O conteúdo de uma pasta é incluído com os caminhos relativos a ela, incluindo as subpastas vazias, e um arquivo é incluído apenas com o seu nome.
+     * Os arquivos são lidos uma única vez, em ordem, enquanto os pedaços já lidos são comprimidos pelas outras threads.
+     *
+     * @param source
+     *            O arquivo ou pasta a ser comprimido.
+     * @param zipFile
+     *            O arquivo ZIP, criado ou substituído.
+     * @param level
+     *            O nível de compressão, de {@link Deflater#BEST_SPEED} a {@link Deflater#BEST_COMPRESSION}, ou {@link Deflater#DEFAULT_COMPRESSION}.
+     * @param threads
+     *            A quantidade de threads de compressão.
+     */
+    public static void zip(File source, File zipFile, int level, int threads) throws IOException {
+        if (threads < 1) {
+            throw new IllegalArgumentException("A quantidade de threads precisa ser positiva: " + threads);
+        }
+        if (!source.exists()) {
+            throw new IOException("\"" + source.getAbsolutePath() + "\" não existe");
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try (FileChannel channel = FileChannel.open(zipFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            Archive archive = new Archive(channel, pool, level, threads);
+            if (source.isDirectory()) {
+                addFolder(archive, source, "", zipFile.getAbsoluteFile());
+            } else {
+                archive.add(source, source.getName());
+            }
+            archive.finish();
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    // inclui o conteúdo da pasta, em ordem alfabética, sem incluir o próprio ZIP
+    private static void addFolder(Archive archive, File folder, String prefix, File zipFile) throws IOException {
+        File[] files = folder.listFiles();
+        if (files == null) {
+            throw new IOException("Não foi possível listar \"" + folder.getAbsolutePath() + "\"");
+        }
+        Arrays.sort(files);
+        for (File file : files) {
+            String name = prefix + file.getName();
+            if (file.isDirectory()) {
+                archive.add(file, name + "/");
+                addFolder(archive, file, name + "/", zipFile);
+            } else if (!file.getAbsoluteFile().equals(zipFile)) {
+                archive.add(file, name);
+            }
+        }
+    }
+
+    private static ByteBuffer buffer(int size) {
+        return ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    // compressão de um pedaço, os pedaços intermediários terminam alinhados em bytes e sem marcar o final do fluxo
+    private static Callable<byte[]> deflate(final byte[] data, final int length, final byte[] dictionary, final boolean last, final int level) {
+        return () -> {
+            Deflater deflater = new Deflater(level, true);
+            try {
+                if (dictionary != null) {
+                    deflater.setDictionary(dictionary, dictionary.length - DICTIONARY_SIZE, DICTIONARY_SIZE);
+                }
+                deflater.setInput(data, 0, length);
+                byte[] output = new byte[length / 2 + 64];
+                int count = 0;
+                if (last) {
+                    deflater.finish();
+                    while (!deflater.finished()) {
+                        if (count == output.length) {
+                            output = Arrays.copyOf(output, output.length * 2);
+                        }
+                        count += deflater.deflate(output, count, output.length - count);
+                    }
+                } else {
+                    while (true) {
+                        if (count == output.length) {
+                            output = Arrays.copyOf(output, output.length * 2);
+                        }
+                        int space = output.length - count;
+                        int written = deflater.deflate(output, count, space, Deflater.SYNC_FLUSH);
+                        count += written;
+                        if (written < space) {
+                            break;
+                        }
+                    }
+                }
+                return Arrays.copyOf(output, count);
+            } finally {
+                deflater.end();
+            }
+        };
+    }
+
+    // converte a data para o formato do MS-DOS usado pelo ZIP, com a hora nos 16 bits mais baixos
+    private static int dosTime(long time) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(time);
+        int year = calendar.get(Calendar.YEAR);
+        if (year < 1980) {
+            return (1 << 21) | (1 << 16); // 1980-01-01 00:00
+        }
+        return (year - 1980) << 25 | (calendar.get(Calendar.MONTH) + 1) << 21 | calendar.get(Calendar.DAY_OF_MONTH) << 16
+                | calendar.get(Calendar.HOUR_OF_DAY) << 11 | calendar.get(Calendar.MINUTE) << 5 | calendar.get(Calendar.SECOND) >> 1;
+    }
+
+    private static <T> T get(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof IOException ? (IOException) cause : new IOException(cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Operação interrompida");
+        }
+    }
+
+    private static int readFully(InputStream input, byte[] bytes) throws IOException {
+        int count = 0;
+        for (int read; count < bytes.length && (read = input.read(bytes, count, bytes.length - count)) != -1; count += read) {
+            ;
+        }
+        return count;
+    }
+
+    // caminho de destino do arquivo do ZIP, que precisa ficar dentro da pasta de destino
+    private static Path resolve(Path root, ZipEntry entry) throws ZipException {
+        Path target = root.resolve(entry.getName()).normalize();
+        if (!target.startsWith(root) || target.equals(root)) {
+            throw new ZipException("O arquivo " + entry.getName() + " seria extraído fora da pasta de destino");
+        }
+        return target;
+    }
+
+    private static short version(Entry entry, boolean zip64) {
+        return (short) (zip64 ? 45 : entry.directory ? 10 : 20);
+    }
+
+    // não faz sentido instanciar esta classe
+    private ZipIO() {}
+}